@@ -0,0 +1,146 @@
+package solitaire;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is an in-process load test of SpectatorStream. One thread plays random headless games and publishes
+ * their moves at a fixed rate while many subscribers follow them on a few threads.
+ * Every slowEvery-th subscriber is polled rarely, so it falls behind the ring and has to catch up from a snapshot.
+ * At the end every subscriber must see the same table as the game.
+ * It lives outside src so it is not shipped with the game; build it against the compiled game classes:
+ * <pre>
+ * javac -cp bin -d loadtest-bin loadtest/solitaire/SpectatorLoadTest.java
+ * java -cp bin:loadtest-bin solitaire.SpectatorLoadTest [subscribers] [moves] [movesPerSecond] [threads] [slowEvery]
+ * </pre>
+ */
+public class SpectatorLoadTest {
+
+    //moves played in one deal before a new one is dealt
+    private static final int MOVES_PER_DEAL = 400;
+    //a slow subscriber is polled once every this many rounds
+    private static final int SLOW_ROUNDS = 200;
+
+    public static void main(String[] args) throws InterruptedException {
+        int subscriberCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int movesPerSecond = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int slowEvery = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+
+        SpectatorStream stream = new SpectatorStream();
+        List<SpectatorStream.Subscriber> subscribers = new ArrayList<>();
+        for (int i = 0; i < subscriberCount; i++) {
+            subscribers.add(stream.subscribe());
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        long[] delivered = new long[threads];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int worker = t;
+            Thread thread = new Thread(() -> {
+                long rounds = 0;
+                while (!done.get()) {
+                    rounds++;
+                    for (int i = worker; i < subscriberCount; i += threads) {
+                        if (slowEvery > 0 && i % slowEvery == 0 && rounds % SLOW_ROUNDS != 0) continue;
+                        delivered[worker] += subscribers.get(i).poll();
+                    }
+                    Thread.yield();
+                }
+            }, "spectator-" + t);
+            workers.add(thread);
+            thread.start();
+        }
+
+        long start = System.nanoTime();
+        long publishNanos = 0;
+        GameState state = null;
+        Random random = new Random(1);
+        int[] legal = new int[GameState.MAX_LEGAL_MOVES];
+        int dealMoves = 0;
+        for (int move = 0; move < moves; move++) {
+            //keep to the requested rate
+            long due = start + move * 1_000_000_000L / movesPerSecond;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int count = state == null ? 0 : state.legalMoves(legal);
+            if (count == 0 || dealMoves == MOVES_PER_DEAL || state.isGameWon()) {
+                state = new GameState(random.nextLong());
+                stream.reset(SpectatorTable.of(state));
+                dealMoves = 0;
+            } else {
+                int delta = play(state, legal[random.nextInt(count)]);
+                long before = System.nanoTime();
+                stream.publish(delta);
+                publishNanos += System.nanoTime() - before;
+                dealMoves++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        done.set(true);
+        for (Thread thread : workers) {
+            thread.join();
+        }
+
+        String expected = SpectatorTable.of(state).toString();
+        int mismatches = 0;
+        long fastRecoveries = 0;
+        long slowRecoveries = 0;
+        for (int i = 0; i < subscriberCount; i++) {
+            SpectatorStream.Subscriber subscriber = subscribers.get(i);
+            subscriber.poll();
+            if (!subscriber.getTable().toString().equals(expected)) {
+                mismatches++;
+            }
+            if (slowEvery > 0 && i % slowEvery == 0) {
+                slowRecoveries += subscriber.getLagRecoveries();
+            } else {
+                fastRecoveries += subscriber.getLagRecoveries();
+            }
+        }
+        long total = 0;
+        for (long d : delivered) {
+            total += d;
+        }
+        System.out.println(String.format("%d moves in %.1f s to %d subscribers on %d threads", moves, seconds,
+                subscriberCount, threads));
+        System.out.println(String.format("publish: %.0f ns per move; delivered %.0f deltas/s",
+                (double) publishNanos / moves, total / seconds));
+        System.out.println(String.format("caught up from a snapshot: %d times by keeping-up subscribers, %d by slow ones",
+                fastRecoveries, slowRecoveries));
+        System.out.println(mismatches == 0 ? "All subscribers match the game." : mismatches + " subscribers do not match the game.");
+    }
+
+    //plays the move and returns its delta
+    private static int play(GameState state, int move) {
+        if (move == GameState.DRAW) {
+            if (state.size(GameState.STOCK) > 0) {
+                state.draw();
+                return SpectatorStream.delta(GameState.STOCK, GameState.WASTE, 1,
+                        SpectatorStream.REVEAL_MOVED, state.topCard(GameState.WASTE));
+            }
+            int waste = state.size(GameState.WASTE);
+            state.draw();
+            return SpectatorStream.delta(GameState.WASTE, GameState.STOCK, waste,
+                    SpectatorStream.TURN_DOWN, SpectatorStream.NO_CARD);
+        }
+        int source = GameState.moveSource(move);
+        int faceDown = state.faceDownCount(source);
+        state.apply(move);
+        int flags = 0;
+        int card = SpectatorStream.NO_CARD;
+        //spectators are told the new top of the waste, and a tableau card that was turned over
+        if ((source == GameState.WASTE || state.faceDownCount(source) < faceDown) && state.size(source) > 0) {
+            flags = SpectatorStream.REVEAL_SOURCE;
+            card = state.topCard(source);
+        }
+        return SpectatorStream.delta(source, GameState.moveDest(move), GameState.moveCardCount(move), flags, card);
+    }
+}
@@ -0,0 +1,59 @@
+package solitaire;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * This class holds what the AssetManifest and AssetManifestBuilder share about the image files: the theme paths
+ * listed in resources/assets.properties and the content hash of a file.
+ * It does not use JavaFX, so the builder can run on a machine without it.
+ */
+public class AssetFiles {
+
+    public static final String MANIFEST = "resources/assets.properties";
+
+    //the images before there was a manifest, used when it cannot be read
+    static final String CLASSIC_FACES = "resources/card_images/{card}.png";
+    static final String CLASSIC_BACK = "resources/card_images/cardback.jpg";
+    static final String CLASSIC_TABLE = "resources/table/nasa.jpg";
+
+    //positions in the arrays returned by themePaths
+    static final int FACES = 0;
+    static final int BACK = 1;
+    static final int TABLE = 2;
+
+    private AssetFiles() {
+    }
+
+    //the face pattern, back and table path of each theme in the manifest, in order; the classic theme when none is listed
+    static Map<String, String[]> themePaths(Properties properties) {
+        Map<String, String[]> themes = new LinkedHashMap<>();
+        for (String name : properties.getProperty("themes", "").split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) continue;
+            String prefix = "theme." + name + ".";
+            themes.put(name, new String[]{
+                    properties.getProperty(prefix + "faces", CLASSIC_FACES),
+                    properties.getProperty(prefix + "back", CLASSIC_BACK),
+                    properties.getProperty(prefix + "table", CLASSIC_TABLE)});
+        }
+        if (themes.isEmpty()) {
+            themes.put("classic", new String[]{CLASSIC_FACES, CLASSIC_BACK, CLASSIC_TABLE});
+        }
+        return themes;
+    }
+
+    //the face image of a card, with {card} in the pattern standing for the CardIdentity image name
+    static String facePath(String facePattern, int ordinal) {
+        return facePattern.replace("{card}", CardIdentity.of(ordinal).getImageName());
+    }
+
+    //the content hash used by the ImageCache and the AssetManifest
+    static long checksum(byte[] source) {
+        CRC32 crc = new CRC32();
+        crc.update(source, 0, source.length);
+        return crc.getValue();
+    }
+}
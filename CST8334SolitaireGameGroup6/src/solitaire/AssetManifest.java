@@ -0,0 +1,97 @@
+package solitaire;
+
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * This class reads resources/assets.properties, which lists the themes and the content hash of every image they use.
+ * The hashes let the ImageCache build a cached image without reading its file, and files with the same content
+ * are loaded once even when several paths or themes name them. The manifest also gives the size of every image,
+ * and a file whose size no longer matches is read and hashed again, so an edited image is not taken from the cache.
+ * AssetManifestBuilder writes the hashes and sizes; run it again after adding or changing an image.
+ */
+public class AssetManifest {
+
+    private static AssetManifest defaultManifest;
+
+    private final Map<String, Theme> themes = new LinkedHashMap<>();
+    //content hash of each image by its resource path
+    private final Map<String, Long> hashes = new HashMap<>();
+    //size in bytes of each image by its resource path
+    private final Map<String, Long> sizes = new HashMap<>();
+    //images already loaded, by content hash and size, shared by every theme
+    private final Map<String, Image> loaded = new HashMap<>();
+
+    AssetManifest(Properties properties) {
+        for (Map.Entry<String, String[]> theme : AssetFiles.themePaths(properties).entrySet()) {
+            String[] paths = theme.getValue();
+            themes.put(theme.getKey(), new Theme(this, theme.getKey(),
+                    paths[AssetFiles.FACES], paths[AssetFiles.BACK], paths[AssetFiles.TABLE]));
+        }
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("hash.")) {
+                try {
+                    hashes.put(key.substring(5), Long.parseLong(properties.getProperty(key), 16));
+                } catch (NumberFormatException e) {
+                    System.err.println("Ignoring the bad hash of " + key.substring(5) + " in the asset manifest.");
+                }
+            } else if (key.startsWith("size.")) {
+                try {
+                    sizes.put(key.substring(5), Long.parseLong(properties.getProperty(key)));
+                } catch (NumberFormatException e) {
+                    System.err.println("Ignoring the bad size of " + key.substring(5) + " in the asset manifest.");
+                }
+            }
+        }
+    }
+
+    public static synchronized AssetManifest getDefault() {
+        if (defaultManifest == null) {
+            Properties properties = new Properties();
+            try (InputStream in = AssetManifest.class.getClassLoader().getResourceAsStream(AssetFiles.MANIFEST)) {
+                if (in != null) {
+                    properties.load(in);
+                } else {
+                    System.err.println("No asset manifest at " + AssetFiles.MANIFEST + ", using the classic theme.");
+                }
+            } catch (IOException e) {
+                System.err.println("An exception occurred while reading the asset manifest: " + e.getMessage());
+                e.printStackTrace();
+            }
+            defaultManifest = new AssetManifest(properties);
+        }
+        return defaultManifest;
+    }
+
+    public List<String> getThemeNames() {
+        return new ArrayList<>(themes.keySet());
+    }
+
+    //returns null when there is no theme of that name
+    public Theme getTheme(String name) {
+        return themes.get(name);
+    }
+
+    synchronized Image loadImage(String path, double width, double height) {
+        Long hash = hashes.get(path);
+        Long size = sizes.get(path);
+        if (hash == null || size == null) {
+            return ImageCache.getDefault().load(path, width, height);
+        }
+        String key = Long.toHexString(hash) + "@" + (int) width + "x" + (int) height;
+        Image image = loaded.get(key);
+        if (image == null) {
+            image = ImageCache.getDefault().load(path, hash, size, width, height);
+            loaded.put(key, image);
+        }
+        return image;
+    }
+}
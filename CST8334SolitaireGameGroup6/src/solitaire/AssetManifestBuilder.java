@@ -0,0 +1,116 @@
+package solitaire;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * This is the tool that writes the content hashes and sizes of resources/assets.properties.
+ * It keeps the themes listed in the manifest, hashes every image they use,
+ * and reports files with the same content and files that no theme uses so they can be removed.
+ * <pre>
+ * java solitaire.AssetManifestBuilder [sourceFolder]
+ * </pre>
+ */
+public class AssetManifestBuilder {
+
+    public static void main(String[] args) throws IOException {
+        Path root = Paths.get(args.length > 0 ? args[0] : "src");
+        Path manifestFile = root.resolve(AssetFiles.MANIFEST);
+
+        Properties properties = new Properties();
+        if (Files.exists(manifestFile)) {
+            try (InputStream in = Files.newInputStream(manifestFile)) {
+                properties.load(in);
+            }
+        }
+        Map<String, String[]> themes = AssetFiles.themePaths(properties);
+        List<String> themeNames = new ArrayList<>(themes.keySet());
+
+        //every resource path a theme uses, in theme order
+        Set<String> referenced = new LinkedHashSet<>();
+        for (String[] paths : themes.values()) {
+            for (int ordinal = 0; ordinal < CardIdentity.COUNT; ordinal++) {
+                referenced.add(AssetFiles.facePath(paths[AssetFiles.FACES], ordinal));
+            }
+            referenced.add(paths[AssetFiles.BACK]);
+            referenced.add(paths[AssetFiles.TABLE]);
+        }
+
+        Map<String, Long> hashes = new TreeMap<>();
+        Map<String, Long> sizes = new TreeMap<>();
+        for (String path : referenced) {
+            Path file = root.resolve(path);
+            if (!Files.exists(file)) {
+                System.err.println("Missing asset: " + path);
+                continue;
+            }
+            byte[] bytes = Files.readAllBytes(file);
+            hashes.put(path, AssetFiles.checksum(bytes));
+            sizes.put(path, (long) bytes.length);
+        }
+
+        reportUnused(root, referenced, hashes);
+        write(manifestFile, properties, themeNames, hashes, sizes);
+        System.out.println("Wrote " + manifestFile + " with " + themeNames.size() + " themes and "
+                + hashes.size() + " images.");
+    }
+
+    //lists the files under resources that no theme uses, and the theme images they duplicate
+    private static void reportUnused(Path root, Set<String> referenced, Map<String, Long> hashes) throws IOException {
+        Map<Long, String> byHash = new TreeMap<>();
+        for (Map.Entry<String, Long> entry : hashes.entrySet()) {
+            byHash.putIfAbsent(entry.getValue(), entry.getKey());
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root.resolve("resources"))) {
+            walk.filter(Files::isRegularFile).sorted().forEach(files::add);
+        }
+        for (Path file : files) {
+            String path = root.relativize(file).toString().replace('\\', '/');
+            if (referenced.contains(path) || path.equals(AssetFiles.MANIFEST)) continue;
+            String same = byHash.get(AssetFiles.checksum(Files.readAllBytes(file)));
+            System.out.println(same != null ? "Duplicate of " + same + ": " + path : "Unused: " + path);
+        }
+    }
+
+    private static void write(Path manifestFile, Properties properties, List<String> themes, Map<String, Long> hashes,
+            Map<String, Long> sizes) throws IOException {
+        Files.createDirectories(manifestFile.getParent());
+        try (BufferedWriter out = Files.newBufferedWriter(manifestFile, StandardCharsets.ISO_8859_1)) {
+            out.write("# Themes of the game: the card faces, with {card} standing for the card name such as HEARTS1,\n");
+            out.write("# the card back and the table background. The first theme is used unless -Dsolitaire.theme names another.\n");
+            out.write("themes=" + String.join(",", themes) + "\n");
+            for (String name : themes) {
+                String prefix = "theme." + name + ".";
+                out.write("\n");
+                for (String key : new String[]{"faces", "back", "table"}) {
+                    String value = properties.getProperty(prefix + key);
+                    if (value != null) {
+                        out.write(prefix + key + "=" + value + "\n");
+                    }
+                }
+            }
+            out.write("\n# Content hashes and sizes written by AssetManifestBuilder; run it again after adding or changing an image.\n");
+            for (Map.Entry<String, Long> entry : hashes.entrySet()) {
+                out.write("hash." + entry.getKey() + "=" + Long.toHexString(entry.getValue()) + "\n");
+            }
+            out.write("\n");
+            for (Map.Entry<String, Long> entry : sizes.entrySet()) {
+                out.write("size." + entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        }
+    }
+}
@@ -15,40 +15,42 @@ import java.util.*;
  */
 public class Card extends ImageView {
 
-    private int suit;
-    private int rank;
+    //the card's place in CardIdentity, which holds its suit, rank, colour and names
+    private final int ordinal;
     private boolean faceDown;
 
-    private Image backFace;
-    private Image frontFace;
     private Pile containingPile;
     private DropShadow dropShadow;
  
-    static Image cardBackImage;
-    private static final Map<String, Image> cardFaceImages = new HashMap<>();
     public static final int WIDTH = 100;
     public static final int HEIGHT = 145;
 
-    public Card(int suit, int rank, boolean faceDown) {
-        this.suit = suit;
-        this.rank = rank;
+    public Card(int ordinal, boolean faceDown) {
+        this.ordinal = ordinal;
         this.faceDown = faceDown;
         this.dropShadow = new DropShadow(2, Color.gray(0, 0.75));
-        
 
-        backFace = cardBackImage;
-        frontFace = cardFaceImages.get(getShortName());//get Objectkey to get image, cardFaceImages is a Map
-        //If faceDown is true, then the backFace image is displayed, otherwise, the frontFace image is displayed
-        setImage(faceDown ? backFace : frontFace);
+        //If faceDown is true, then the back image is displayed, otherwise, the face image is displayed
+        showSide();
         setEffect(dropShadow);
+        //keep the shadowed card as a bitmap so a static table does not redraw the effect every frame
+        setCache(true);
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public CardIdentity getIdentity() {
+        return CardIdentity.of(ordinal);
     }
 
     public int getSuit() {
-        return suit;
+        return CardIdentity.suitOf(ordinal);
     }
 
     public int getRank() {
-        return rank;
+        return CardIdentity.rankOf(ordinal);
     }
 
     public boolean isFaceDown() {
@@ -56,7 +58,7 @@ public class Card extends ImageView {
     }
 
     public String getShortName() {
-        return "S" + suit + "R" + rank;
+        return CardIdentity.of(ordinal).getShortName();
     }
 
     public DropShadow getDropShadow() {
@@ -74,8 +76,8 @@ public class Card extends ImageView {
     public void moveToPile(Pile destPile) {
     	//gets the current pile containing the card and stores it in the myPile variable
         Pile myPile = this.getContainingPile();
-        //removes the card from its current pile using the remove method
-        this.getContainingPile().getCards().remove(this);
+        //removes the card from its current pile using the removeCard method
+        myPile.removeCard(this);
         //added to the destination pile using the addCard method
         destPile.addCard(this);
         if (!myPile.isEmpty()) {
@@ -90,35 +92,34 @@ public class Card extends ImageView {
 
     public void flip() {
         faceDown = !faceDown;
-        setImage(faceDown ? backFace : frontFace);
+        showSide();
+    }
+
+    //shows the side facing up in the active theme, also used to re-skin the card when the theme changes
+    void showSide() {
+        Theme theme = Theme.getActive();
+        setImage(faceDown ? theme.getBack() : theme.getFace(ordinal));
     }
 
     @Override
     public String toString() {
-        return "The " + "Rank" + rank + " of " + "Suit" + suit;
+        return CardIdentity.of(ordinal).toString();
     }
 
     public static boolean isOppositeColor(Card card1, Card card2) {
-        String cardColor1 = getCardColor(card1);
-        String cardColor2 = getCardColor(card2);
-
-        return !cardColor1.equals(cardColor2);
+        return CardIdentity.isRed(card1.ordinal) != CardIdentity.isRed(card2.ordinal);
     }
 
     public static  String getCardColor(Card card) {
-        if(card.getSuit() == 1 || card.getSuit() == 2) {
-            return "red";
-        } else {
-            return "black";
-        }
+        return CardIdentity.isRed(card.ordinal) ? "red" : "black";
     }
 
     public static boolean isHigherRank(Card card1, Card card2) {
-        return card1.getRank() == card2.getRank() + 1;
+        return CardIdentity.rankOf(card1.ordinal) == CardIdentity.rankOf(card2.ordinal) + 1;
     }
 
     public static boolean isSameSuit(Card card1, Card card2) {
-        return card1.getSuit() == card2.getSuit();
+        return CardIdentity.suitOf(card1.ordinal) == CardIdentity.suitOf(card2.ordinal);
     }
 
 //    public static List<Card> createNewDeck() {
@@ -134,15 +135,21 @@ public class Card extends ImageView {
 //    }
     
     public static List<Card> createNewDeck() {
+        return createNewDeck(new Random());
+    }
+
+    //deals the same order as new GameState(seed), so a seed picked from the DealIndex gives the indexed deal
+    public static List<Card> createNewDeck(long seed) {
+        return createNewDeck(new Random(seed));
+    }
+
+    private static List<Card> createNewDeck(Random random) {
         List<Card> result = new ArrayList<>();
         try {
-            for (int suit = 1; suit < 5; suit++) {
-                for (int rank = 1; rank < 14; rank++) {
-                    result.add(new Card(suit, rank, true));
-                }
+            for (int ordinal = 0; ordinal < CardIdentity.COUNT; ordinal++) {
+                result.add(new Card(ordinal, true));
             }
-            Collections.shuffle(result);
-            Card.loadCardImages();
+            Collections.shuffle(result, random);
         } catch (Exception e) {
             System.err.println("An exception occurred while loading card images: " + e.getMessage());
             e.printStackTrace();
@@ -150,37 +157,16 @@ public class Card extends ImageView {
         return result;
     }
 
+    //loads every card image of the active theme now instead of when each card is first shown
     public static void loadCardImages() {
-      
-        cardBackImage = new Image("resources/card_images/cardback.jpg", 100, 150, true, true);
-
-        String suitName = "";
-        for (int suit = 1; suit < 5; suit++) {
-            switch (suit) {
-                case 1:
-                    suitName = "HEARTS";
-                    break;
-                case 2:
-                    suitName = "DIAMONDS";
-                    break;
-                case 3:
-                    suitName = "SPADES";
-                    break;
-                case 4:
-                    suitName = "CLUBS";
-                    break;
-            }
-            for (int rank = 1; rank < 14; rank++) {
-                String cardName = suitName + rank;
-                String cardId = "S" + suit + "R" + rank;
-                String imageFileName = "resources/card_images/" + cardName + ".png";
-                try {
-                   
-                    cardFaceImages.put(cardId, new Image(imageFileName, 100, 145, true, true));
-                } catch (Exception e) {
-                    System.err.println("An exception occurred while loading card image: " + imageFileName + " - " + e.getMessage());
-                    e.printStackTrace();
-                }
+        Theme theme = Theme.getActive();
+        theme.getBack();
+        for (int ordinal = 0; ordinal < CardIdentity.COUNT; ordinal++) {
+            try {
+                theme.getFace(ordinal);
+            } catch (Exception e) {
+                System.err.println("An exception occurred while loading card image: " + theme.facePath(ordinal) + " - " + e.getMessage());
+                e.printStackTrace();
             }
         }
     }
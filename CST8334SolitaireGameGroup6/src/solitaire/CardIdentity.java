@@ -0,0 +1,90 @@
+package solitaire;
+
+/**
+ * This class is the fixed table of the 52 cards of a deck, shared by every Card and GameState.
+ * A card is known by its ordinal (suit - 1) * 13 + (rank - 1), with suits 1 to 4 being hearts, diamonds, spades and clubs,
+ * so its suit, rank, colour and names are looked up instead of being stored or built again for every card.
+ */
+public final class CardIdentity {
+
+    public static final int COUNT = 52;
+    public static final int RANKS = 13;
+
+    private static final String[] SUIT_NAMES = {"HEARTS", "DIAMONDS", "SPADES", "CLUBS"};
+    private static final CardIdentity[] IDENTITIES = new CardIdentity[COUNT];
+
+    static {
+        for (int ordinal = 0; ordinal < COUNT; ordinal++) {
+            IDENTITIES[ordinal] = new CardIdentity(ordinal);
+        }
+    }
+
+    private final int ordinal;
+    private final int suit;
+    private final int rank;
+    private final boolean red;
+    private final String shortName;
+    private final String displayName;
+    private final String imageName;
+
+    private CardIdentity(int ordinal) {
+        this.ordinal = ordinal;
+        this.suit = suitOf(ordinal);
+        this.rank = rankOf(ordinal);
+        this.red = isRed(ordinal);
+        this.shortName = "S" + suit + "R" + rank;
+        this.displayName = "The Rank" + rank + " of Suit" + suit;
+        //card images are named after the suit and rank, e.g. HEARTS1.png
+        this.imageName = SUIT_NAMES[suit - 1] + rank;
+    }
+
+    public static CardIdentity of(int ordinal) {
+        return IDENTITIES[ordinal];
+    }
+
+    public static int ordinal(int suit, int rank) {
+        return (suit - 1) * RANKS + (rank - 1);
+    }
+
+    public static int suitOf(int ordinal) {
+        return ordinal / RANKS + 1;
+    }
+
+    public static int rankOf(int ordinal) {
+        return ordinal % RANKS + 1;
+    }
+
+    //suits 1 and 2 are hearts and diamonds
+    public static boolean isRed(int ordinal) {
+        return ordinal < 2 * RANKS;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public int getSuit() {
+        return suit;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public boolean isRed() {
+        return red;
+    }
+
+    public String getShortName() {
+        return shortName;
+    }
+
+    public String getImageName() {
+        return imageName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
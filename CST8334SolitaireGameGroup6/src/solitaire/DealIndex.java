@@ -0,0 +1,148 @@
+package solitaire;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * This class picks seeded deals of a requested difficulty from the index written by DealIndexer.
+ * The index is a sorted list of entries, each the difficulty score in the high 32 bits and the seed in the low 32 bits,
+ * so the deals of one difficulty are a range that is found with two binary searches.
+ * The file is memory-mapped the first time a deal is picked.
+ */
+public class DealIndex {
+
+    static final int MAGIC = 0x534f4c44; // "SOLD"
+    static final int VERSION = 1;
+    //magic, version, entry count, easy and medium score limits, node limit of the solver, reserved
+    static final int HEADER_SIZE = 32;
+    //score of a deal the solver could not win
+    static final int UNSOLVED = Integer.MAX_VALUE;
+    //an entry keeps the low 32 bits of its seed
+    static final long MAX_SEED = 0xFFFFFFFFL;
+
+    public enum Difficulty {
+        RANDOM,
+        EASY,
+        MEDIUM,
+        HARD
+    }
+
+    private static DealIndex defaultIndex;
+
+    private final Path file;
+    private boolean opened;
+    private LongBuffer entries;
+    //scores below easyMax are easy, below mediumMax medium, and the rest up to UNSOLVED hard
+    private int easyMax;
+    private int mediumMax;
+
+    public DealIndex(Path file) {
+        this.file = file;
+    }
+
+    //the index in the user's home folder, or the file given by -Dsolitaire.dealIndex
+    public static synchronized DealIndex getDefault() {
+        if (defaultIndex == null) {
+            String path = System.getProperty("solitaire.dealIndex");
+            defaultIndex = new DealIndex(path != null ? Paths.get(path)
+                    : Paths.get(System.getProperty("user.home"), ".cst8334solitaire", "deals.idx"));
+        }
+        return defaultIndex;
+    }
+
+    //difficulty score of one solved deal: search effort, length of the winning line and passes through the stock
+    static int score(Solver.Result result) {
+        if (!result.solved) {
+            return UNSOLVED;
+        }
+        int effort = (int) (100 * Math.log(result.nodes + 1) / Math.log(2));
+        return effort + result.moves + 25 * result.stockPasses;
+    }
+
+    static long entry(int score, long seed) {
+        return (long) score << 32 | (seed & MAX_SEED);
+    }
+
+    private boolean open() {
+        if (opened) {
+            return entries != null;
+        }
+        opened = true;
+        if (!Files.exists(file)) {
+            System.err.println("No deal index at " + file + ", dealing random games.");
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                throw new IOException("not a deal index");
+            }
+            long count = mapped.getLong(8);
+            if (HEADER_SIZE + count * 8 > channel.size()) {
+                throw new IOException("truncated deal index");
+            }
+            easyMax = mapped.getInt(16);
+            mediumMax = mapped.getInt(20);
+            mapped.position(HEADER_SIZE);
+            ByteBuffer body = mapped.slice();
+            entries = body.asLongBuffer();
+            entries.limit((int) count);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("An exception occurred while opening the deal index: " + e.getMessage());
+            return false;
+        }
+    }
+
+    //returns a seed of the requested difficulty, or -1 when there is no index or no deal of that difficulty
+    public synchronized long pickSeed(Difficulty difficulty, Random random) {
+        if (difficulty == Difficulty.RANDOM || !open()) {
+            return -1;
+        }
+        int low;
+        int high;
+        switch (difficulty) {
+            case EASY:
+                low = 0;
+                high = easyMax;
+                break;
+            case MEDIUM:
+                low = easyMax;
+                high = mediumMax;
+                break;
+            default:
+                low = mediumMax;
+                high = UNSOLVED;
+                break;
+        }
+        int from = lowerBound(entry(low, 0));
+        int to = lowerBound(entry(high, 0));
+        if (from >= to) {
+            return -1;
+        }
+        return entries.get(from + random.nextInt(to - from)) & 0xFFFFFFFFL;
+    }
+
+    //index of the first entry that is not less than key
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = entries.limit();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.get(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,124 @@
+package solitaire;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * This class keeps a few winnable deals ready for Restart in "winnable only" mode.
+ * A background thread shuffles seeded deals, keeps the ones the Solver wins, and puts their seeds in a small queue.
+ * When the queue is full the thread blocks until a deal is taken, so it only uses the CPU while the queue is being refilled.
+ * The thread is a daemon started on first use and stopped by close().
+ */
+public class DealPipeline {
+
+    //deals kept ready
+    public static final int CAPACITY = 4;
+
+    private static DealPipeline defaultPipeline;
+
+    private final BlockingQueue<Long> ready;
+    private final int nodeLimit;
+    private final Random random = new Random();
+    private Thread worker;
+    //threads waiting in takeSeed(), woken by close()
+    private final Set<Thread> takers = new HashSet<>();
+    private volatile boolean closed;
+
+    public DealPipeline(int capacity, int nodeLimit) {
+        this.ready = new ArrayBlockingQueue<>(capacity);
+        this.nodeLimit = nodeLimit;
+    }
+
+    //the pipeline shared by every Game in the JVM
+    public static synchronized DealPipeline getDefault() {
+        if (defaultPipeline == null) {
+            defaultPipeline = new DealPipeline(CAPACITY, Solver.DEFAULT_NODE_LIMIT);
+        }
+        return defaultPipeline;
+    }
+
+    //stops the default pipeline if it was ever used, called when the application exits
+    public static synchronized void shutdown() {
+        if (defaultPipeline != null) {
+            defaultPipeline.close();
+        }
+    }
+
+    //starts filling the queue in the background; does nothing when it is already running or closed
+    public synchronized void start() {
+        if (worker != null || closed) {
+            return;
+        }
+        worker = new Thread(this::run, "deal-pipeline");
+        worker.setDaemon(true);
+        //the JavaFX thread comes first on a busy machine
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    private void run() {
+        Solver solver = new Solver(nodeLimit);
+        try {
+            while (!closed) {
+                //put blocks while the queue is full
+                ready.put(findWinnableSeed(solver));
+            }
+        } catch (InterruptedException e) {
+            //closed
+        }
+    }
+
+    //shuffles deals until the solver wins one
+    private long findWinnableSeed(Solver solver) throws InterruptedException {
+        while (true) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long seed = random.nextLong();
+            if (solver.solve(new GameState(seed)).solved) {
+                return seed;
+            }
+        }
+    }
+
+    //returns a winnable seed when one is ready, otherwise null without waiting
+    public Long pollSeed() {
+        start();
+        return ready.poll();
+    }
+
+    //waits until the background thread has a winnable seed; not for the JavaFX thread.
+    //Throws InterruptedException when the pipeline is closed during the wait
+    public long takeSeed() throws InterruptedException {
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The deal pipeline is closed.");
+            }
+            start();
+            takers.add(Thread.currentThread());
+        }
+        try {
+            return ready.take();
+        } finally {
+            synchronized (this) {
+                takers.remove(Thread.currentThread());
+            }
+        }
+    }
+
+    public synchronized void close() {
+        closed = true;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+        //nothing will fill the queue any more
+        for (Thread taker : takers) {
+            taker.interrupt();
+        }
+        ready.clear();
+    }
+}
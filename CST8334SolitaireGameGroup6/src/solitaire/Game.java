@@ -4,8 +4,11 @@ package solitaire;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.event.EventHandler;
+import javafx.geometry.Point2D;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.image.Image;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Background;
@@ -15,6 +18,7 @@ import javafx.scene.layout.BackgroundRepeat;
 import javafx.scene.layout.BackgroundSize;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
@@ -24,6 +28,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * This is the controller class that consists all the method to play the game
@@ -31,10 +38,14 @@ import java.util.List;
  */
 public class Game extends Pane {
 
+    //every table in the JVM, so a theme change redraws all of them
+    private static final Set<Game> games = Collections.newSetFromMap(new WeakHashMap<>());
+
     private List<Card> deck;
 
     private Pile stockPile;
     private Pile discardPile;
+    private StockRing stockRing;
     private List<Pile> foundationPiles = FXCollections.observableArrayList();
     private List<Pile> tableauPiles = FXCollections.observableArrayList();
 
@@ -45,8 +56,30 @@ public class Game extends Pane {
     private static double FOUNDATION_GAP = 0;
     private static double TABLEAU_GAP = 30;
     private static double HIDDEN_GAP = 0;
+    //foundation cards kept in the scene graph, the top card and the one under it while it is dragged
+    private static int FOUNDATION_VISIBLE_DEPTH = 2;
+
+    //what the player has done in the current deal, saved to the statistics when it ends
+    private int variant = Statistics.VARIANT_CLASSIC;
+    private int moveCount;
+    private long startTime;
+    private boolean gameRecorded;
+    //difficulty of the deals dealt by Restart, picked from the DealIndex
+    private DealIndex.Difficulty difficulty = DealIndex.Difficulty.RANDOM;
+    private final Random dealRandom = new Random();
+    //when set, Restart deals a deal the Solver has won, taken from the DealPipeline
+    private boolean winnableOnly;
+    //the moves of this table, for spectators
+    private final SpectatorStream spectatorStream = new SpectatorStream();
+    //null when the manifest has one theme
+    private ChoiceBox<String> themeBox;
+    //shown while Restart waits for the DealPipeline, null otherwise
+    private Text pendingDealText;
+    //the thread waiting for that deal, null otherwise
+    private Thread dealWaiter;
 
     public Game() {
+        games.add(this);
         deck = Card.createNewDeck();
         initPiles();
         dealCards();
@@ -68,34 +101,33 @@ public class Game extends Pane {
                 handleValidMove(card, pileToMove);
             }
             draggedCards.clear();
-            return;
-        }
-        /* If the clicked card is in the stock pile, then the top card of the stock pile is moved to the discard pile, 
-         * flipped over if it was face down, and its mouseTransparent property is set to false. 
-         * Finally, a message is printed to the console indicating that the card was placed in the waste pile.
-         */
-        if (card != null && card.getContainingPile().getPileType() == Pile.PileType.STOCK) {
-            card = card.getContainingPile().getTopCard();
-            card.moveToPile(discardPile);
-            if (card.isFaceDown()) {
-                card.flip();
-            }
-            card.setMouseTransparent(false);
-            System.out.println("Placed " + card + " to the waste.");
         }
     };
 
-    private EventHandler<MouseEvent> stockReverseCardsHandler = e -> {
-        if (stockPile.isEmpty()) {
+    /* The stock has no card nodes, so a click on the stock pile turns its next card face up onto the waste,
+     * or turns the waste back over when the stock is empty.
+     */
+    private EventHandler<MouseEvent> stockClickedHandler = e -> {
+        if (stockRing.stockCount() > 0) {
+            Card card = stockRing.draw();
+            moveCount++;
+            spectatorStream.publish(SpectatorStream.delta(GameState.STOCK, GameState.WASTE, 1,
+                    SpectatorStream.REVEAL_MOVED, card.getOrdinal()));
+            System.out.println("Placed " + card + " to the waste.");
+        } else if (stockRing.wasteCount() > 0) {
+            spectatorStream.publish(SpectatorStream.delta(GameState.WASTE, GameState.STOCK, stockRing.wasteCount(),
+                    SpectatorStream.TURN_DOWN, SpectatorStream.NO_CARD));
             refillStockFromDiscard();
+            moveCount++;
         }
     };
-    /* retrieves the x and y coordinates of the mouse press event using 
-     * the getSceneX() and getSceneY() methods of the MouseEvent object e. 
+    /* retrieves the x and y coordinates of the mouse press event on this board,
+     * which MultiTable may scale, so a drag moves the cards as far as the cursor.
      */
     private EventHandler<MouseEvent> onMousePressedHandler = e -> {
-        dragStartX = e.getSceneX();
-        dragStartY = e.getSceneY();
+        Point2D point = sceneToLocal(e.getSceneX(), e.getSceneY());
+        dragStartX = point.getX();
+        dragStartY = point.getY();
     };
     
     /* retrieves the Card object that corresponds to the node that triggered the mouse drag event 
@@ -109,10 +141,11 @@ public class Game extends Pane {
         draggedCards.clear();
         
         /* calculates the offset between the initial position of the mouse cursor when the drag operation started 
-         * and the current position of the mouse cursor using the getSceneX() and getSceneY() methods of the MouseEvent object e.
+         * and the current position of the mouse cursor, both on this board.
          */
-        double offsetX = e.getSceneX() - dragStartX;
-        double offsetY = e.getSceneY() - dragStartY;
+        Point2D point = sceneToLocal(e.getSceneX(), e.getSceneY());
+        double offsetX = point.getX() - dragStartX;
+        double offsetY = point.getY() - dragStartY;
 
         draggedCards.clear();
         
@@ -131,8 +164,8 @@ public class Game extends Pane {
                 draggedCards.remove(activePileCard);
             }
 
-            offsetX = e.getSceneX() - dragStartX - 50;
-            offsetY = e.getSceneY() - dragStartY - 50;
+            offsetX = point.getX() - dragStartX - 50;
+            offsetY = point.getY() - dragStartY - 50;
             for (Card draggedCard : draggedCards) {
 
                 draggedCard.getDropShadow().setOffsetX(0);
@@ -166,7 +199,9 @@ public class Game extends Pane {
         if (draggedCards.size() > 1) {
             Pile additionalPile = new Pile(Pile.PileType.HIDDEN, "", HIDDEN_GAP);
             if (isMoveValid(draggedCards.get(0), pile)) {
+                publishMove(activeSource(), pile, draggedCards.size());
                 moveCardsToPile(pile);
+                moveCount++;
             } else {
                 moveCardsToPile(additionalPile);
                 draggedCards.clear();
@@ -185,10 +220,70 @@ public class Game extends Pane {
         }
         draggedCards.clear();
         if (pile.getPileType().equals(Pile.PileType.FOUNDATION)) {
-            if (isGameWon() && pile.numOfCards() == 12) showModal("Congratulations!");
+            if (isGameWon() && pile.numOfCards() == 12) onGameWon();
         }
     };
 
+    private Pile activeSource() {
+        return draggedCards.get(0).getContainingPile();
+    }
+
+    public SpectatorStream getSpectatorStream() {
+        return spectatorStream;
+    }
+
+    //sends a move to the spectators before its cards slide, while the source pile still holds them
+    private void publishMove(Pile source, Pile dest, int count) {
+        if (source == dest) {
+            return;
+        }
+        int flags = 0;
+        int revealed = SpectatorStream.NO_CARD;
+        Card below = null;
+        if (source == discardPile) {
+            //spectators only know the top of the waste, so they are told the card under it
+            below = stockRing.wasteCardBelow(count);
+        } else if (source.numOfCards() > count) {
+            Card card = source.getCards().get(source.numOfCards() - count - 1);
+            if (card.isFaceDown() && source.getPileType() == Pile.PileType.TABLEAU) {
+                below = card;
+            }
+        }
+        if (below != null) {
+            flags = SpectatorStream.REVEAL_SOURCE;
+            revealed = below.getOrdinal();
+        }
+        spectatorStream.publish(SpectatorStream.delta(pileIndex(source), pileIndex(dest), count, flags, revealed));
+    }
+
+    //the GameState number of a pile
+    private int pileIndex(Pile pile) {
+        if (pile == stockPile) return GameState.STOCK;
+        if (pile == discardPile) return GameState.WASTE;
+        int foundation = foundationPiles.indexOf(pile);
+        if (foundation >= 0) return GameState.FIRST_FOUNDATION + foundation;
+        return GameState.FIRST_TABLEAU + tableauPiles.indexOf(pile);
+    }
+
+    //what spectators see of the table just dealt
+    private SpectatorTable spectatorSnapshot() {
+        SpectatorTable table = new SpectatorTable();
+        for (int i = 0; i < stockRing.stockCount(); i++) {
+            table.push(GameState.STOCK, SpectatorTable.UNKNOWN);
+        }
+        for (Pile pile : foundationPiles) {
+            for (Card card : pile.getCards()) {
+                table.push(pileIndex(pile), card.getOrdinal());
+            }
+        }
+        for (Pile pile : tableauPiles) {
+            for (Card card : pile.getCards()) {
+                table.push(pileIndex(pile), card.isFaceDown() ? SpectatorTable.UNKNOWN : card.getOrdinal());
+            }
+        }
+        return table;
+    }
+
     private void moveCardsToPile(Pile pile){
         for (Card draggedCard : draggedCards) {
             draggedCard.moveToPile(pile);
@@ -204,6 +299,65 @@ public class Game extends Pane {
         return false;
     }
 
+    //shows the win message and saves the deal to the statistics once
+    private void onGameWon() {
+        if (gameRecorded) {
+            return;
+        }
+        recordGame(true);
+        showModal("Congratulations!");
+    }
+
+    //saves the current deal to the statistics, a deal with no moves is not counted
+    //saves the current deal as a loss when the player quits without finishing it, e.g. by closing the window
+    public void recordUnfinishedGame() {
+        recordGame(false);
+    }
+
+    private void recordGame(boolean won) {
+        if (gameRecorded || (!won && moveCount == 0)) {
+            return;
+        }
+        gameRecorded = true;
+        Statistics statistics = Statistics.getDefault();
+        if (statistics != null) {
+            statistics.recordGame(System.currentTimeMillis() - startTime, moveCount, variant, won);
+        }
+    }
+
+    private void showStatistics() {
+        Statistics statistics = Statistics.getDefault();
+        if (statistics == null) {
+            showModal("No statistics available.");
+            return;
+        }
+        final Stage dialog = new Stage();
+        VBox dialogVbox = new VBox(8);
+        dialogVbox.setStyle("-fx-padding: 16;");
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Played: %d   Won: %d", statistics.getGamesPlayed(), statistics.getGamesWon()));
+        lines.add(String.format("Win streak: %d   Best streak: %d", statistics.getCurrentStreak(), statistics.getBestStreak()));
+        if (statistics.getGamesWon() > 0) {
+            lines.add(String.format("Best time: %.1f s   Fewest moves: %d",
+                    statistics.getBestTimeMillis() / 1000.0, statistics.getFewestMoves()));
+        }
+        for (int i = 0; i < Statistics.VARIANT_COUNT; i++) {
+            if (statistics.getVariantPlayed(i) > 0) {
+                lines.add(String.format("%s: %.0f%% of %d won", Statistics.getVariantName(i),
+                        statistics.getWinRate(i), statistics.getVariantPlayed(i)));
+            }
+        }
+        for (String line : lines) {
+            Text text = new Text(line);
+            text.setStyle("-fx-font: 16 arial;");
+            dialogVbox.getChildren().add(text);
+        }
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        dialog.setTitle("Statistics");
+        dialog.setScene(new Scene(dialogVbox));
+        dialog.show();
+    }
+
     private void showModal(String msg) {
         final Stage dialog = new Stage();
         Text text = new Text(msg);
@@ -226,18 +380,8 @@ public class Game extends Pane {
     }
 
     public void refillStockFromDiscard() {
-        stockPile.clear();
-        /*This puts the cards back in their original order, 
-         * so that they can be added to the stockPile in the correct sequence.
-         */
-        Collections.reverse(discardPile.getCards());
-        for (Card card : discardPile.getCards()) {
-            stockPile.addCard(card);
-            if (!card.isFaceDown()) {
-                card.flip();
-            }
-        }
-        discardPile.clear();
+        //the ring keeps the cards in drawing order, so this only resets its cursor
+        stockRing.recycle();
         System.out.println("Stock refilled from discard pile.");
     }
 
@@ -279,6 +423,12 @@ public class Game extends Pane {
     }
 
     private void handleValidMove(Card card, Pile destPile) {
+        //dropped back on its own pile: slide home without taking the cards out of the pile
+        if (destPile == card.getContainingPile()) {
+            MouseUtil.slidesBack(draggedCards);
+            draggedCards.clear();
+            return;
+        }
         String msg = null;
         if (destPile.isEmpty()) {
             if (destPile.getPileType().equals(Pile.PileType.FOUNDATION))
@@ -289,10 +439,12 @@ public class Game extends Pane {
             msg = String.format("Placed %s to %s.", card, destPile.getTopCard());
         }
         System.out.println(msg);
+        publishMove(card.getContainingPile(), destPile, draggedCards.size());
+        moveCount++;
         MouseUtil.slideToDest(draggedCards, destPile);
         draggedCards.clear();
-        if (destPile.equals(Pile.PileType.FOUNDATION)) {
-            if (isGameWon()) showModal("Congratulations!");
+        if (destPile.getPileType().equals(Pile.PileType.FOUNDATION)) {
+            if (isGameWon() && destPile.numOfCards() == 12) onGameWon();
         }
     }
 
@@ -301,7 +453,7 @@ public class Game extends Pane {
         stockPile.setWhiteStrokeBackground();
         stockPile.setLayoutX(95);
         stockPile.setLayoutY(20);
-        stockPile.setOnMouseClicked(stockReverseCardsHandler);
+        stockPile.setOnMouseClicked(stockClickedHandler);
         getChildren().add(stockPile);
 
         discardPile = new Pile(Pile.PileType.DISCARD, "Discard", STOCK_GAP);
@@ -309,6 +461,7 @@ public class Game extends Pane {
         discardPile.setLayoutX(230);
         discardPile.setLayoutY(20);
         getChildren().add(discardPile);
+        stockRing = new StockRing(stockPile, discardPile);
 
         Button restartBtn = new Button("Restart");
         //restartBtn.setStyle("-fx-font: 18 arial; -fx-base: #666666;");
@@ -324,6 +477,45 @@ public class Game extends Pane {
             }
         });
 
+        ChoiceBox<DealIndex.Difficulty> difficultyBox = new ChoiceBox<>(
+                FXCollections.observableArrayList(DealIndex.Difficulty.values()));
+        difficultyBox.setValue(difficulty);
+        difficultyBox.setStyle("-fx-font: 16 arial;");
+        difficultyBox.setLayoutX(400);
+        difficultyBox.setLayoutY(700);
+        getChildren().add(difficultyBox);
+        difficultyBox.valueProperty().addListener((observable, oldValue, newValue) -> difficulty = newValue);
+
+        CheckBox winnableBox = new CheckBox("Winnable only");
+        winnableBox.setSelected(winnableOnly);
+        winnableBox.setStyle("-fx-font: 16 arial; -fx-text-fill: #ffffff;");
+        winnableBox.setLayoutX(250);
+        winnableBox.setLayoutY(703);
+        getChildren().add(winnableBox);
+        winnableBox.selectedProperty().addListener((observable, oldValue, newValue) -> {
+            winnableOnly = newValue;
+            if (newValue) {
+                //start solving deals now so the next Restart finds one ready
+                DealPipeline.getDefault().start();
+            } else {
+                cancelWinnableDeal();
+            }
+        });
+
+        //the theme choice is only offered when the manifest has more than one
+        AssetManifest manifest = AssetManifest.getDefault();
+        if (manifest.getThemeNames().size() > 1) {
+            themeBox = new ChoiceBox<>(FXCollections.observableArrayList(manifest.getThemeNames()));
+            themeBox.setValue(Theme.getActive().getName());
+            themeBox.setStyle("-fx-font: 16 arial;");
+            themeBox.setLayoutX(95);
+            themeBox.setLayoutY(700);
+            getChildren().add(themeBox);
+            themeBox.valueProperty().addListener((observable, oldValue, newValue) -> setTheme(manifest.getTheme(newValue)));
+        } else {
+            themeBox = null;
+        }
+
         Button exitBtn = new Button("Exit");
         exitBtn.setStyle("-fx-font: 16 arial; -fx-background-color: #ffffff; -fx-background-radius: 20; -fx-text-fill: #000000;");
         exitBtn.setLayoutX(850);
@@ -332,14 +524,28 @@ public class Game extends Pane {
         exitBtn.addEventHandler(MouseEvent.MOUSE_CLICKED, new EventHandler<MouseEvent>() {
             @Override
             public void handle(MouseEvent e) {
+                recordGame(false);
             	Platform.exit();
             }
         });
 
+        Button statsBtn = new Button("Stats");
+        statsBtn.setStyle("-fx-font: 16 arial; -fx-background-color: #ffffff; -fx-background-radius: 20; -fx-text-fill: #000000;");
+        statsBtn.setLayoutX(550);
+        statsBtn.setLayoutY(700);
+        getChildren().add(statsBtn);
+        statsBtn.addEventHandler(MouseEvent.MOUSE_CLICKED, new EventHandler<MouseEvent>() {
+            @Override
+            public void handle(MouseEvent e) {
+                showStatistics();
+            }
+        });
+
         for (int i = 0; i < 4; i++) {
             Pile foundationPile = new Pile(Pile.PileType.FOUNDATION, "Foundation " + i, FOUNDATION_GAP);
             //foundationPile.setBlurredBackground();
             foundationPile.setWhiteStrokeBackground();
+            foundationPile.setVisibleDepth(FOUNDATION_VISIBLE_DEPTH);
             //foundationPile.setLayoutX(610 + i * 180);
             foundationPile.setLayoutX(500 + i * 125);
             foundationPile.setLayoutY(20);
@@ -359,6 +565,10 @@ public class Game extends Pane {
     }
 
     public void dealCards() {
+        moveCount = 0;
+        startTime = System.currentTimeMillis();
+        gameRecorded = false;
+
     	//the index of the tableau pile that the current card will be added to
         int numberOfPile = 0;
         //the index of the current card in the deck
@@ -368,10 +578,12 @@ public class Game extends Pane {
         //the number of cards that will be dealt to the tableau piles
         int countOfCardsToDeal = 27;
         int countOfPiles = 7;
+        //the stock cards are handed to the stock ring, which keeps them out of the scene graph until drawn
+        List<Card> stockCards = new ArrayList<>();
 
         for (Card card : deck) {
             if (numberOfCard > countOfCardsToDeal) {
-                stockPile.addCard(card);
+                stockCards.add(card);
                 addActionToCard(card);
             } else {
                 tableauPiles.get(numberOfPile).addCard(card);
@@ -392,11 +604,13 @@ public class Game extends Pane {
 
             numberOfCard++;
         }
+        stockRing.deal(stockCards);
+        spectatorStream.reset(spectatorSnapshot());
     }
 
+    //the piles add the cards they show to the table
     private Card addActionToCard(Card card) {
         addMouseEventHandlers(card);
-        getChildren().add(card);
         return card;
     }
 
@@ -406,14 +620,136 @@ public class Game extends Pane {
                 BackgroundPosition.CENTER, BackgroundSize.DEFAULT)));
     }
 
+    //table background of the active theme, shared by every Game in the JVM
+    public static Image getDefaultTableBackground() {
+        return Theme.getActive().getTable();
+    }
+
+    //switches the theme and redraws every table and its cards without dealing again
+    public static void setTheme(Theme theme) {
+        if (theme == Theme.getActive()) {
+            return;
+        }
+        Theme.setActive(theme);
+        for (Game game : new ArrayList<>(games)) {
+            game.redraw(theme);
+        }
+    }
+
+    private void redraw(Theme theme) {
+        stockPile.refreshTheme();
+        discardPile.refreshTheme();
+        for (Pile pile : foundationPiles) {
+            pile.refreshTheme();
+        }
+        for (Pile pile : tableauPiles) {
+            pile.refreshTheme();
+        }
+        //the deck also holds the cards that are not on the table, the stock and the waste below the ring's window
+        for (Card card : deck) {
+            card.showSide();
+        }
+        setTableBackground(theme.getTable());
+        if (themeBox != null) {
+            themeBox.setValue(theme.getName());
+        }
+    }
+
     private void restart() {
+        //Restart while a winnable deal is awaited only stops waiting and keeps the current game
+        if (dealWaiter != null) {
+            cancelWinnableDeal();
+            return;
+        }
+        if (winnableOnly) {
+            //only a deal the Solver has won; when none is ready the table says so and deals as soon as one is
+            Long seed = DealPipeline.getDefault().pollSeed();
+            if (seed == null) {
+                waitForWinnableDeal();
+            } else {
+                dealWinnable(seed);
+            }
+            return;
+        }
+        recordGame(false);
         clearPane();
-        deck = Card.createNewDeck();
+        deck = createDeck();
         initPiles();
         dealCards();
     }
 
+    private void dealWinnable(long seed) {
+        recordGame(false);
+        clearPane();
+        variant = Statistics.VARIANT_WINNABLE;
+        deck = Card.createNewDeck(seed);
+        initPiles();
+        dealCards();
+    }
+
+    //the solver runs on the pipeline's thread, so this thread only waits for it and the table stays responsive
+    private void waitForWinnableDeal() {
+        pendingDealText = new Text("Finding a winnable deal... (Restart to cancel)");
+        pendingDealText.setStyle("-fx-font: 16 arial;");
+        pendingDealText.setFill(Color.WHITE);
+        pendingDealText.setLayoutX(95);
+        pendingDealText.setLayoutY(680);
+        getChildren().add(pendingDealText);
+        dealWaiter = new Thread(() -> {
+            Thread waiter = Thread.currentThread();
+            try {
+                long seed = DealPipeline.getDefault().takeSeed();
+                Platform.runLater(() -> {
+                    //the wait may have been cancelled after the seed was taken
+                    if (dealWaiter == waiter) {
+                        cancelWinnableDeal();
+                        dealWinnable(seed);
+                    }
+                });
+            } catch (InterruptedException e) {
+                //cancelled, or the application is closing
+            }
+        }, "deal-waiter");
+        dealWaiter.setDaemon(true);
+        dealWaiter.start();
+    }
+
+    private void cancelWinnableDeal() {
+        if (dealWaiter != null) {
+            dealWaiter.interrupt();
+            dealWaiter = null;
+        }
+        if (pendingDealText != null) {
+            getChildren().remove(pendingDealText);
+            pendingDealText = null;
+        }
+    }
+
+    //deals a deal of the chosen difficulty when the index has one, or a random deal
+    private List<Card> createDeck() {
+        long seed = DealIndex.getDefault().pickSeed(difficulty, dealRandom);
+        if (seed < 0) {
+            variant = Statistics.VARIANT_CLASSIC;
+            return Card.createNewDeck();
+        }
+        switch (difficulty) {
+            case EASY:
+                variant = Statistics.VARIANT_EASY;
+                break;
+            case MEDIUM:
+                variant = Statistics.VARIANT_MEDIUM;
+                break;
+            default:
+                variant = Statistics.VARIANT_HARD;
+                break;
+        }
+        System.out.println("Dealing " + difficulty + " deal " + seed + ".");
+        return Card.createNewDeck(seed);
+    }
+
     private void clearPane() {
+        //a deal can arrive while the table is frozen into its idle snapshot
+        IdleMonitor.wake(this);
         stockPile.clear();
         discardPile.clear();
         foundationPiles.clear();
@@ -0,0 +1,136 @@
+package solitaire;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This is a headless server that plays games for remote thin clients over a line based protocol.
+ * Every connection is one session with its own GameState, handled by its own thread,
+ * so sessions never share state or locks.
+ * <pre>
+ * NEW seed             deal a new game              OK
+ * DRAW                 turn a card from the stock   OK | ERR empty
+ * MOVE src dst count   move cards between piles     OK | WON | ERR illegal
+ * STATE                print the piles              OK state
+ * QUIT                 close the session            BYE
+ * </pre>
+ * Pile numbers are the GameState pile indexes.
+ */
+public class GameServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 8334;
+
+    private final ServerSocket serverSocket;
+    //one thread per connection
+    private final ExecutorService sessions = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "solitaire-session");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //listens on the loopback interface; port 0 picks a free port
+    public GameServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer server = new GameServer(port);
+        System.out.println("Solitaire server listening on port " + server.getPort());
+        server.acceptLoop();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    //accepts connections on a background thread
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "solitaire-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sessions.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Error accepting connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            GameState state = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.trim().split(" ");
+                String reply;
+                if (parts[0].equals("QUIT")) {
+                    out.write("BYE\n");
+                    out.flush();
+                    return;
+                }
+                try {
+                    if (parts[0].equals("NEW")) {
+                        state = new GameState(parts.length > 1 ? Long.parseLong(parts[1]) : System.nanoTime());
+                        reply = "OK";
+                    } else if (state == null) {
+                        reply = "ERR no game";
+                    } else {
+                        reply = execute(state, parts);
+                    }
+                } catch (NumberFormatException e) {
+                    reply = "ERR bad number";
+                }
+                out.write(reply);
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Session ended with an error: " + e);
+        }
+    }
+
+    private static String execute(GameState state, String[] parts) {
+        switch (parts[0]) {
+            case "DRAW":
+                return state.draw() ? "OK" : "ERR empty";
+            case "MOVE":
+                if (parts.length != 4) return "ERR usage MOVE src dst count";
+                if (!state.move(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]))) {
+                    return "ERR illegal";
+                }
+                return state.isGameWon() ? "WON" : "OK";
+            case "STATE":
+                return "OK " + state;
+            default:
+                return "ERR unknown command";
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+}
@@ -0,0 +1,265 @@
+package solitaire;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This is a headless model of one game: the deal, move validation, applying moves and win detection.
+ * It follows the same rules as Game but holds the cards as small numbers so it can run without JavaFX.
+ * A card is stored as its CardIdentity ordinal (suit - 1) * 13 + (rank - 1).
+ */
+public class GameState {
+
+    //pile indexes: stock, waste, 4 foundations and 7 tableau piles
+    public static final int STOCK = 0;
+    public static final int WASTE = 1;
+    public static final int FIRST_FOUNDATION = 2;
+    public static final int FIRST_TABLEAU = 6;
+    public static final int PILE_COUNT = 13;
+
+    public static final int DECK_SIZE = 52;
+    //a move is packed as source << 16 | destination << 8 | number of cards
+    public static final int DRAW = encodeMove(STOCK, WASTE, 1);
+    //the most moves legalMoves can report for one position
+    public static final int MAX_LEGAL_MOVES = 512;
+
+    //pile p holds its cards, bottom first, in cards[p * DECK_SIZE] onwards; one array keeps copies cheap
+    private final byte[] cards = new byte[PILE_COUNT * DECK_SIZE];
+    private final int[] sizes = new int[PILE_COUNT];
+    //number of face-down cards at the bottom of each pile
+    private final int[] faceDown = new int[PILE_COUNT];
+    private int moveCount;
+    private int stockPasses;
+
+    //deals a shuffled deck the same way Game.dealCards does
+    public GameState(long seed) {
+        List<Integer> deck = new ArrayList<>(DECK_SIZE);
+        for (int ordinal = 0; ordinal < DECK_SIZE; ordinal++) {
+            deck.add(ordinal);
+        }
+        Collections.shuffle(deck, new Random(seed));
+        deal(deck);
+    }
+
+    //copy constructor, used to explore moves without touching the original
+    public GameState(GameState other) {
+        System.arraycopy(other.cards, 0, cards, 0, cards.length);
+        System.arraycopy(other.sizes, 0, sizes, 0, PILE_COUNT);
+        System.arraycopy(other.faceDown, 0, faceDown, 0, PILE_COUNT);
+        moveCount = other.moveCount;
+        stockPasses = other.stockPasses;
+    }
+
+    private void deal(List<Integer> deck) {
+        int card = 0;
+        //tableau pile i gets i + 1 cards with only the top one face up
+        for (int row = 0; row < 7; row++) {
+            for (int pile = row; pile < 7; pile++) {
+                push(FIRST_TABLEAU + pile, deck.get(card++));
+            }
+        }
+        for (int pile = 0; pile < 7; pile++) {
+            faceDown[FIRST_TABLEAU + pile] = pile;
+        }
+        while (card < DECK_SIZE) {
+            push(STOCK, deck.get(card++));
+        }
+        faceDown[STOCK] = sizes[STOCK];
+    }
+
+    public static int suitOf(int card) {
+        return CardIdentity.suitOf(card);
+    }
+
+    public static int rankOf(int card) {
+        return CardIdentity.rankOf(card);
+    }
+
+    public static boolean isRed(int card) {
+        return CardIdentity.isRed(card);
+    }
+
+    public static boolean isFoundation(int pile) {
+        return pile >= FIRST_FOUNDATION && pile < FIRST_TABLEAU;
+    }
+
+    public static boolean isTableau(int pile) {
+        return pile >= FIRST_TABLEAU && pile < PILE_COUNT;
+    }
+
+    public static int encodeMove(int source, int dest, int count) {
+        return source << 16 | dest << 8 | count;
+    }
+
+    public static int moveSource(int move) {
+        return move >>> 16;
+    }
+
+    public static int moveDest(int move) {
+        return (move >>> 8) & 0xFF;
+    }
+
+    //number of cards an encoded move takes, not to be confused with getMoveCount(), the moves played so far
+    public static int moveCardCount(int move) {
+        return move & 0xFF;
+    }
+
+    public int size(int pile) {
+        return sizes[pile];
+    }
+
+    public int card(int pile, int index) {
+        return cards[pile * DECK_SIZE + index];
+    }
+
+    public int faceDownCount(int pile) {
+        return faceDown[pile];
+    }
+
+    //returns the top card of the pile, or -1 when it is empty
+    public int topCard(int pile) {
+        return sizes[pile] == 0 ? -1 : cards[pile * DECK_SIZE + sizes[pile] - 1];
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    //number of times the waste has been turned back into the stock
+    public int getStockPasses() {
+        return stockPasses;
+    }
+
+    public boolean isGameWon() {
+        for (int pile = FIRST_FOUNDATION; pile < FIRST_TABLEAU; pile++) {
+            if (sizes[pile] != 13) return false;
+        }
+        return true;
+    }
+
+    //same rules as Game.isMoveValid
+    public boolean isMoveValid(int card, int destPile) {
+        int top = topCard(destPile);
+        if (isTableau(destPile)) {
+            if (top < 0) {
+                return rankOf(card) == 13;
+            } else {
+                return isRed(card) != isRed(top) && rankOf(top) == rankOf(card) + 1;
+            }
+        } else if (isFoundation(destPile)) {
+            if (top < 0) {
+                return rankOf(card) == 1;
+            } else {
+                return suitOf(card) == suitOf(top) && rankOf(card) == rankOf(top) + 1;
+            }
+        }
+        return false;
+    }
+
+    public boolean canMove(int source, int dest, int count) {
+        if (source == dest || count < 1 || dest < FIRST_FOUNDATION || dest >= PILE_COUNT) return false;
+        if (source < WASTE || source >= PILE_COUNT) return false;
+        //only a tableau pile can give a run of several cards, and only a single card can go to a foundation
+        if (count > 1 && (!isTableau(source) || isFoundation(dest))) return false;
+        if (count > sizes[source] - faceDown[source]) return false;
+        return isMoveValid(cards[source * DECK_SIZE + sizes[source] - count], dest);
+    }
+
+    //turns one card from the stock, or the whole waste back over when the stock is empty
+    public boolean draw() {
+        if (sizes[STOCK] > 0) {
+            push(WASTE, pop(STOCK));
+            faceDown[STOCK]--;
+        } else if (sizes[WASTE] > 0) {
+            while (sizes[WASTE] > 0) {
+                push(STOCK, pop(WASTE));
+            }
+            faceDown[STOCK] = sizes[STOCK];
+            stockPasses++;
+        } else {
+            return false;
+        }
+        moveCount++;
+        return true;
+    }
+
+    //moves the top count cards from source to dest and turns the new top of a tableau pile face up
+    public boolean move(int source, int dest, int count) {
+        if (!canMove(source, dest, count)) return false;
+        int from = sizes[source] - count;
+        System.arraycopy(cards, source * DECK_SIZE + from, cards, dest * DECK_SIZE + sizes[dest], count);
+        sizes[dest] += count;
+        sizes[source] = from;
+        if (faceDown[source] > 0 && faceDown[source] == sizes[source]) {
+            faceDown[source]--;
+        }
+        moveCount++;
+        return true;
+    }
+
+    public boolean apply(int move) {
+        if (move == DRAW) return draw();
+        return move(moveSource(move), moveDest(move), moveCardCount(move));
+    }
+
+    //writes every legal move into moves and returns how many there are; drawing is listed last
+    public int legalMoves(int[] moves) {
+        int n = 0;
+        for (int source = WASTE; source < PILE_COUNT; source++) {
+            int faceUp = sizes[source] - faceDown[source];
+            int maxRun = isTableau(source) ? faceUp : Math.min(faceUp, 1);
+            for (int count = 1; count <= maxRun; count++) {
+                //moving a card between foundations never helps, so it is not listed
+                for (int dest = isFoundation(source) ? FIRST_TABLEAU : FIRST_FOUNDATION; dest < PILE_COUNT; dest++) {
+                    if (canMove(source, dest, count)) {
+                        moves[n++] = encodeMove(source, dest, count);
+                    }
+                }
+            }
+        }
+        if (sizes[STOCK] > 0 || sizes[WASTE] > 0) {
+            moves[n++] = DRAW;
+        }
+        return n;
+    }
+
+    //64-bit FNV-1a hash of the piles and face-down counts, used to spot positions that were already searched
+    public long stateHash() {
+        long hash = 0xcbf29ce484222325L;
+        for (int pile = 0; pile < PILE_COUNT; pile++) {
+            hash = (hash ^ (0x80 | faceDown[pile])) * 0x100000001b3L;
+            for (int i = 0; i < sizes[pile]; i++) {
+                hash = (hash ^ cards[pile * DECK_SIZE + i]) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    private void push(int pile, int card) {
+        cards[pile * DECK_SIZE + sizes[pile]++] = (byte) card;
+    }
+
+    private int pop(int pile) {
+        return cards[pile * DECK_SIZE + --sizes[pile]];
+    }
+
+    //one pile per field separated by '/', face-down cards in brackets, e.g. "[12]40,3"
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int pile = 0; pile < PILE_COUNT; pile++) {
+            if (pile > 0) sb.append('/');
+            for (int i = 0; i < sizes[pile]; i++) {
+                if (i > 0) sb.append(',');
+                if (i < faceDown[pile]) {
+                    sb.append('[').append(card(pile, i)).append(']');
+                } else {
+                    sb.append(card(pile, i));
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,196 @@
+package solitaire;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.InputEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.Pane;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class puts a table that nobody plays into a low power state for always-on displays.
+ * After a time with no input and no card animation, the table is replaced by a snapshot of itself:
+ * the cards, piles and background are hidden and the cards drop their shadows and cached bitmaps,
+ * so a repaint draws one image and nothing asks JavaFX for another pulse.
+ * The first input wakes the table again; a press that only wakes it does not reach the cards.
+ * Code that rebuilds the table without input, such as a deal that arrives later, calls wake(table) first.
+ * <p>
+ * The check runs on its own timer thread instead of an animation, which would keep the pulses going.
+ * With reporting on, the pulses per second and the CPU use of the process are printed every few seconds.
+ */
+public class IdleMonitor {
+
+    public static final long DEFAULT_IDLE_MILLIS = 60_000;
+    private static final long CHECK_MILLIS = 1000;
+    private static final long REPORT_MILLIS = 5000;
+
+    private final Scene scene;
+    private final Pane table;
+    private final long idleMillis;
+    private final boolean report;
+    private final ScheduledExecutorService timer;
+
+    private volatile long lastInput = System.currentTimeMillis();
+    //set on the JavaFX thread, idle is also read by the timer
+    private boolean buttonDown;
+    private volatile boolean idle;
+    private ImageView snapshotView;
+    private Background savedBackground;
+    private final List<Node> hiddenNodes = new ArrayList<>();
+
+    //pulses counted on the JavaFX thread and read by the timer
+    private final AtomicInteger pulses = new AtomicInteger();
+    private long lastReportNanos;
+    private long lastCpuNanos;
+
+    public IdleMonitor(Scene scene, Pane table, long idleMillis, boolean report) {
+        this.scene = scene;
+        this.table = table;
+        this.idleMillis = idleMillis;
+        this.report = report;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "idle-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //the idle time set by --idle=SECONDS, or -1 after printing why the value is not usable
+    public static long parseIdleMillis(Map<String, String> named) {
+        long seconds;
+        try {
+            seconds = Long.parseLong(named.getOrDefault("idle", String.valueOf(DEFAULT_IDLE_MILLIS / 1000)));
+        } catch (NumberFormatException e) {
+            seconds = 0;
+        }
+        if (seconds < 1) {
+            System.err.println("--idle must be a whole number of seconds of at least 1.");
+            return -1;
+        }
+        return seconds * 1000;
+    }
+
+    public void start() {
+        table.getProperties().put(IdleMonitor.class, this);
+        scene.addEventFilter(InputEvent.ANY, this::onInput);
+        timer.scheduleWithFixedDelay(() -> {
+            if (!idle && System.currentTimeMillis() - lastInput >= idleMillis) {
+                Platform.runLater(this::enterIdle);
+            }
+        }, CHECK_MILLIS, CHECK_MILLIS, TimeUnit.MILLISECONDS);
+        if (report) {
+            scene.addPostLayoutPulseListener(pulses::incrementAndGet);
+            lastReportNanos = System.nanoTime();
+            lastCpuNanos = processCpuNanos();
+            timer.scheduleAtFixedRate(this::report, REPORT_MILLIS, REPORT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void stop() {
+        table.getProperties().remove(IdleMonitor.class);
+        timer.shutdownNow();
+    }
+
+    //leaves the idle state of the table, if a monitor watches it, before the table is rebuilt; on the JavaFX thread
+    public static void wake(Pane table) {
+        Object monitor = table.getProperties().get(IdleMonitor.class);
+        if (monitor instanceof IdleMonitor) {
+            ((IdleMonitor) monitor).lastInput = System.currentTimeMillis();
+            ((IdleMonitor) monitor).exitIdle();
+        }
+    }
+
+    private void onInput(InputEvent e) {
+        lastInput = System.currentTimeMillis();
+        if (e.getEventType() == MouseEvent.MOUSE_PRESSED) {
+            buttonDown = true;
+        } else if (e.getEventType() == MouseEvent.MOUSE_RELEASED) {
+            buttonDown = false;
+        }
+        if (idle) {
+            exitIdle();
+            //the press was aimed at the snapshot, so it only wakes the table
+            if (e.getEventType() == MouseEvent.MOUSE_PRESSED) {
+                e.consume();
+            }
+        }
+    }
+
+    private void enterIdle() {
+        //input or an animation since the timer looked, or a card held without moving
+        if (idle || buttonDown || MouseUtil.isAnimating()
+                || System.currentTimeMillis() - lastInput < idleMillis) {
+            return;
+        }
+        snapshotView = new ImageView(table.snapshot(null, null));
+        snapshotView.setMouseTransparent(true);
+        for (Node node : table.getChildren()) {
+            if (!node.isVisible()) continue;
+            hiddenNodes.add(node);
+            node.setVisible(false);
+            if (node instanceof Card) {
+                node.setEffect(null);
+                node.setCache(false);
+            }
+        }
+        savedBackground = table.getBackground();
+        table.setBackground(null);
+        table.getChildren().add(snapshotView);
+        idle = true;
+    }
+
+    private void exitIdle() {
+        if (!idle) {
+            return;
+        }
+        //the snapshot and the hidden nodes may already have been taken off the table
+        table.getChildren().remove(snapshotView);
+        snapshotView = null;
+        table.setBackground(savedBackground);
+        savedBackground = null;
+        for (Node node : hiddenNodes) {
+            if (node.getParent() != table) continue;
+            if (node instanceof Card) {
+                Card card = (Card) node;
+                card.setEffect(card.getDropShadow());
+                card.setCache(true);
+            }
+            node.setVisible(true);
+        }
+        hiddenNodes.clear();
+        idle = false;
+    }
+
+    private void report() {
+        long now = System.nanoTime();
+        long cpu = processCpuNanos();
+        double seconds = (now - lastReportNanos) / 1e9;
+        String cpuUse = cpu < 0 ? "n/a" : String.format("%.1f%%", 100.0 * (cpu - lastCpuNanos)
+                / (now - lastReportNanos) / Runtime.getRuntime().availableProcessors());
+        System.out.println(String.format("%s: %.1f pulses/s, CPU %s", idle ? "Idle" : "Active",
+                pulses.getAndSet(0) / seconds, cpuUse));
+        lastReportNanos = now;
+        lastCpuNanos = cpu;
+    }
+
+    //CPU time used by the process, or -1 when the JVM does not report it
+    private static long processCpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,316 @@
+package solitaire;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class keeps the decoded and scaled images in one file so later starts do not decode the PNG and JPG files again.
+ * The file is memory-mapped and each image is built straight from its pixels in the mapped buffer.
+ * <p>
+ * Every image is keyed by its resource path, or by its content hash from the AssetManifest, and its target size,
+ * and stores the checksum of the source file, so a changed image is decoded again and the file is rewritten by save().
+ * Start with -Dsolitaire.imageCache=false to decode every image as before.
+ */
+public class ImageCache {
+
+    private static final int MAGIC = 0x534f4c49; // "SOLI"
+    private static final int VERSION = 1;
+
+    private static ImageCache defaultCache;
+
+    private final Path file;
+    private final boolean enabled;
+    //images found in the cache file, by key; kept by save() even when this run did not use them
+    private final Map<String, Entry> entries = new HashMap<>();
+    //images loaded in this run, written back by save()
+    private final Map<String, Entry> used = new LinkedHashMap<>();
+    private MappedByteBuffer mapped;
+    private boolean changed;
+    private int hits;
+    private int misses;
+
+    private static class Entry {
+        final String key;
+        final long checksum;
+        final int width;
+        final int height;
+        //position of the pixels in the mapped file, or -1 when they are only in pixels
+        long offset = -1;
+        int[] pixels;
+
+        Entry(String key, long checksum, int width, int height) {
+            this.key = key;
+            this.checksum = checksum;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    public ImageCache(Path file, boolean enabled) {
+        this.file = file;
+        this.enabled = enabled;
+        if (enabled) {
+            open();
+        }
+    }
+
+    //the cache in the user's home folder, shared by every Game in the JVM
+    public static synchronized ImageCache getDefault() {
+        if (defaultCache == null) {
+            Path path = Paths.get(System.getProperty("user.home"), ".cst8334solitaire", "images.cache");
+            defaultCache = new ImageCache(path, Boolean.parseBoolean(System.getProperty("solitaire.imageCache", "true")));
+        }
+        return defaultCache;
+    }
+
+    private void open() {
+        Path pending = pendingFile();
+        try {
+            //a cache that could not replace the mapped file last time is moved in now
+            if (Files.exists(pending)) {
+                Files.move(pending, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (!Files.exists(file)) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            ByteBuffer header = mapped.duplicate().order(ByteOrder.BIG_ENDIAN);
+            boolean nativeOrder = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || (header.get() == 1) != nativeOrder) {
+                return;
+            }
+            int count = header.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[header.getShort() & 0xFFFF];
+                header.get(key);
+                Entry entry = new Entry(new String(key, StandardCharsets.UTF_8), header.getLong(), header.getInt(), header.getInt());
+                entry.offset = header.getLong();
+                if (entry.offset + 4L * entry.width * entry.height > mapped.capacity()) {
+                    throw new IOException("truncated image cache");
+                }
+                entries.put(entry.key, entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring the image cache: " + e);
+            entries.clear();
+            mapped = null;
+        }
+    }
+
+    //same as new Image(resource, width, height, true, true), but taken from the cache when the source has not changed
+    public synchronized Image load(String resource, double width, double height) {
+        if (!enabled) {
+            return new Image(resource, width, height, true, true);
+        }
+        byte[] source = readResource(resource);
+        if (source == null) {
+            return new Image(resource, width, height, true, true);
+        }
+        long checksum = AssetFiles.checksum(source);
+        String key = resource + "@" + (int) width + "x" + (int) height;
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.checksum == checksum) {
+            return cachedImage(key, entry);
+        }
+        return decode(key, checksum, source, width, height);
+    }
+
+    //same as load(resource, width, height), but trusts the checksum from the AssetManifest while the file still has
+    //the size the manifest gives, so a cached image is built without reading its file; the image is keyed by its
+    //content, so files with the same content share one entry
+    public synchronized Image load(String resource, long checksum, long size, double width, double height) {
+        if (!enabled) {
+            return new Image(resource, width, height, true, true);
+        }
+        String key = contentKey(checksum, width, height);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.checksum == checksum && resourceSize(resource) == size) {
+            return cachedImage(key, entry);
+        }
+        byte[] source = readResource(resource);
+        if (source == null) {
+            return new Image(resource, width, height, true, true);
+        }
+        long actual = AssetFiles.checksum(source);
+        if (actual != checksum) {
+            System.err.println("The asset manifest is out of date for " + resource + ", run AssetManifestBuilder again.");
+            key = contentKey(actual, width, height);
+        }
+        return decode(key, actual, source, width, height);
+    }
+
+    private static String contentKey(long checksum, double width, double height) {
+        return "#" + Long.toHexString(checksum) + "@" + (int) width + "x" + (int) height;
+    }
+
+    private Image cachedImage(String key, Entry entry) {
+        hits++;
+        used.put(key, entry);
+        WritableImage image = new WritableImage(entry.width, entry.height);
+        image.getPixelWriter().setPixels(0, 0, entry.width, entry.height,
+                PixelFormat.getIntArgbPreInstance(), mappedPixels(entry), entry.width);
+        return image;
+    }
+
+    private Image decode(String key, long checksum, byte[] source, double width, double height) {
+        misses++;
+        changed = true;
+        Image image = new Image(new ByteArrayInputStream(source), width, height, true, true);
+        Entry entry = new Entry(key, checksum, (int) image.getWidth(), (int) image.getHeight());
+        entry.pixels = new int[entry.width * entry.height];
+        image.getPixelReader().getPixels(0, 0, entry.width, entry.height,
+                PixelFormat.getIntArgbPreInstance(), entry.pixels, 0, entry.width);
+        used.put(key, entry);
+        return image;
+    }
+
+    private IntBuffer mappedPixels(Entry entry) {
+        ByteBuffer pixels = mapped.duplicate();
+        pixels.position((int) entry.offset);
+        pixels.limit((int) entry.offset + 4 * entry.width * entry.height);
+        return pixels.slice().order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    //the size of the resource from the file system or the jar directory, without reading it; -1 when it is not known
+    private static long resourceSize(String resource) {
+        URL url = ImageCache.class.getClassLoader().getResource(resource);
+        if (url == null) {
+            return -1;
+        }
+        try {
+            if (url.getProtocol().equals("file")) {
+                return Files.size(Paths.get(url.toURI()));
+            }
+            URLConnection connection = url.openConnection();
+            if (connection instanceof JarURLConnection) {
+                return ((JarURLConnection) connection).getJarEntry().getSize();
+            }
+            long size = connection.getContentLengthLong();
+            connection.getInputStream().close();
+            return size;
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] readResource(String resource) {
+        try (InputStream in = ImageCache.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(in.available(), 8192));
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    //rewrites the cache file when an image was decoded since the last save; safe to call again later in the run
+    public synchronized void save() {
+        if (!enabled || !changed) {
+            return;
+        }
+        //images cached by earlier runs stay, for faces and themes that are only shown later
+        Map<String, Entry> all = new LinkedHashMap<>(entries);
+        all.putAll(used);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            writeCache(temp, all);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                //Windows does not replace a file that is still mapped, so it is moved in on the next start
+                Files.move(temp, pendingFile(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            changed = false;
+            entries.clear();
+            entries.putAll(all);
+        } catch (IOException e) {
+            System.err.println("An exception occurred while saving the image cache: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void writeCache(Path target, Map<String, Entry> all) throws IOException {
+        int headerSize = 4 + 4 + 1 + 4;
+        for (Entry entry : all.values()) {
+            headerSize += 2 + entry.key.getBytes(StandardCharsets.UTF_8).length + 8 + 4 + 4 + 8;
+        }
+        //pixel data starts on an 8 byte boundary so every image is int aligned
+        long offset = (headerSize + 7) & ~7L;
+        ByteBuffer header = ByteBuffer.allocate((int) offset);
+        header.putInt(MAGIC).putInt(VERSION).put((byte) (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? 1 : 0));
+        header.putInt(all.size());
+        for (Entry entry : all.values()) {
+            byte[] key = entry.key.getBytes(StandardCharsets.UTF_8);
+            header.putShort((short) key.length).put(key);
+            header.putLong(entry.checksum).putInt(entry.width).putInt(entry.height).putLong(offset);
+            offset += 4L * entry.width * entry.height;
+        }
+        header.clear();
+
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(header);
+            for (Entry entry : all.values()) {
+                ByteBuffer pixels;
+                if (entry.pixels != null) {
+                    pixels = ByteBuffer.allocate(4 * entry.pixels.length).order(ByteOrder.nativeOrder());
+                    pixels.asIntBuffer().put(entry.pixels);
+                } else {
+                    pixels = mapped.duplicate();
+                    pixels.position((int) entry.offset);
+                    pixels.limit((int) entry.offset + 4 * entry.width * entry.height);
+                }
+                while (pixels.hasRemaining()) {
+                    out.write(pixels);
+                }
+            }
+        }
+    }
+
+    private Path pendingFile() {
+        return file.resolveSibling(file.getFileName() + ".new");
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+}
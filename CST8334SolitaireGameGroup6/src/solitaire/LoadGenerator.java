@@ -0,0 +1,166 @@
+package solitaire;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class drives a GameServer over the loopback interface and reports move latency and sessions per second.
+ * Each client keeps its own copy of the game so it can pick legal moves without asking the server.
+ * <pre>
+ * java solitaire.LoadGenerator [sessions] [clients] [movesPerSession] [port]
+ * </pre>
+ * Without a port an in-process server is started on a free port.
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int movesPerSession = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        GameServer server = null;
+        int port;
+        if (args.length > 3) {
+            port = Integer.parseInt(args[3]);
+        } else {
+            server = new GameServer(0);
+            server.start();
+            port = server.getPort();
+        }
+
+        AtomicInteger nextSession = new AtomicInteger();
+        List<Client> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            Client client = new Client(port, sessions, movesPerSession, nextSession);
+            workers.add(client);
+            client.start();
+        }
+        for (Client client : workers) {
+            client.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        //each client recorded its own latencies, so they are only merged once everything has finished
+        int total = 0;
+        int won = 0;
+        for (Client client : workers) {
+            total += client.latencyCount;
+            won += client.won;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Client client : workers) {
+            System.arraycopy(client.latencies, 0, latencies, offset, client.latencyCount);
+            offset += client.latencyCount;
+        }
+        Arrays.sort(latencies);
+
+        System.out.println(String.format("%d sessions (%d won), %d moves, %d clients in %.2f s",
+                sessions, won, total, clients, seconds));
+        System.out.println(String.format("%.0f sessions/s, %.0f moves/s", sessions / seconds, total / seconds));
+        if (total > 0) {
+            System.out.println(String.format("move latency p50 %.1f us, p99 %.1f us",
+                    percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3));
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(p * sorted.length))];
+    }
+
+    //plays sessions one after another until all of them have been handed out
+    private static class Client extends Thread {
+        private final int port;
+        private final int sessions;
+        private final int movesPerSession;
+        private final AtomicInteger nextSession;
+        private final int[] moves = new int[GameState.MAX_LEGAL_MOVES];
+        private long[] latencies = new long[1024];
+        private int latencyCount;
+        private int won;
+
+        Client(int port, int sessions, int movesPerSession, AtomicInteger nextSession) {
+            super("load-client");
+            this.port = port;
+            this.sessions = sessions;
+            this.movesPerSession = movesPerSession;
+            this.nextSession = nextSession;
+        }
+
+        @Override
+        public void run() {
+            int session;
+            while ((session = nextSession.getAndIncrement()) < sessions) {
+                try {
+                    playSession(session);
+                } catch (IOException e) {
+                    System.err.println("Session " + session + " failed: " + e.getMessage());
+                }
+            }
+        }
+
+        private void playSession(long seed) throws IOException {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                socket.setTcpNoDelay(true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                OutputStream out = socket.getOutputStream();
+
+                GameState state = new GameState(seed);
+                Random random = new Random(seed);
+                send(out, in, "NEW " + seed);
+                for (int i = 0; i < movesPerSession; i++) {
+                    int count = state.legalMoves(moves);
+                    if (count == 0) break;
+                    //prefer real moves over drawing, which is always listed last
+                    int move = count > 1 && random.nextInt(4) != 0 ? moves[random.nextInt(count - 1)] : moves[count - 1];
+                    state.apply(move);
+
+                    String command = move == GameState.DRAW ? "DRAW" : "MOVE " + GameState.moveSource(move) + " "
+                            + GameState.moveDest(move) + " " + GameState.moveCardCount(move);
+                    long sent = System.nanoTime();
+                    String reply = send(out, in, command);
+                    record(System.nanoTime() - sent);
+                    if (reply.startsWith("ERR")) {
+                        throw new IOException("server rejected " + command + ": " + reply);
+                    }
+                    if (reply.equals("WON")) {
+                        won++;
+                        break;
+                    }
+                }
+                send(out, in, "QUIT");
+            }
+        }
+
+        private static String send(OutputStream out, BufferedReader in, String command) throws IOException {
+            out.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            String reply = in.readLine();
+            if (reply == null) {
+                throw new IOException("connection closed");
+            }
+            return reply;
+        }
+
+        private void record(long nanos) {
+            if (latencyCount == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[latencyCount++] = nanos;
+        }
+    }
+}
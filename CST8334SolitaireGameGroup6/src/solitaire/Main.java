@@ -3,10 +3,12 @@ package solitaire;
 
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
-import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
+import java.lang.management.ManagementFactory;
+
 /**
  * This is the main class to run the game
  * 
@@ -14,8 +16,11 @@ import javafx.stage.Stage;
  */
 public class Main extends Application {
 
-    private static final double WINDOW_WIDTH = 1050;
-    private static final double WINDOW_HEIGHT = 800;
+    static final double WINDOW_WIDTH = 1050;
+    static final double WINDOW_HEIGHT = 800;
+
+    private Game game;
+    private IdleMonitor idleMonitor;
 
     public static void main(String[] args) {
         launch(args);
@@ -23,14 +28,55 @@ public class Main extends Application {
 
     @Override
     public void start(Stage primaryStage) {
-        Card.loadCardImages();
-        Game game = new Game();
-        game.setTableBackground(new Image("resources/table/nasa.jpg",1050, 800, true, true));
-  
+        //--idle=SECONDS sets how long the table waits before it goes idle, --power-report prints pulses and CPU use
+        long idleMillis = IdleMonitor.parseIdleMillis(getParameters().getNamed());
+        if (idleMillis < 0) {
+            Platform.exit();
+            return;
+        }
+
+        long loadStart = System.nanoTime();
+        game = new Game();
+        game.setTableBackground(Game.getDefaultTableBackground());
+        long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
 
         primaryStage.setTitle("CST8334 Group6 Solitaire");
-        primaryStage.setScene(new Scene(game, WINDOW_WIDTH, WINDOW_HEIGHT));
+        Scene scene = new Scene(game, WINDOW_WIDTH, WINDOW_HEIGHT);
+        primaryStage.setScene(scene);
+        reportFirstFrame(scene, loadMillis);
+
+        idleMonitor = new IdleMonitor(scene, game, idleMillis, getParameters().getRaw().contains("--power-report"));
+        idleMonitor.start();
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        if (idleMonitor != null) {
+            idleMonitor.stop();
+        }
+        DealPipeline.shutdown();
+        if (game != null) {
+            game.recordUnfinishedGame();
+        }
+        //faces and themes first shown after the first frame
+        ImageCache.getDefault().save();
+    }
+
+    //prints the time from JVM start to the first frame, then saves the images decoded so far for the next start
+    private static void reportFirstFrame(Scene scene, long loadMillis) {
+        Runnable firstFrame = new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                long sinceStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+                ImageCache imageCache = ImageCache.getDefault();
+                System.out.println(String.format("First frame after %d ms (images %d ms, %d cached, %d decoded)",
+                        sinceStart, loadMillis, imageCache.getHits(), imageCache.getMisses()));
+                Platform.runLater(imageCache::save);
+            }
+        };
+        scene.addPostLayoutPulseListener(firstFrame);
+    }
+
 }
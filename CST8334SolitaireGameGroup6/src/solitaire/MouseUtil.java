@@ -1,6 +1,7 @@
 package solitaire;
 
 
+import javafx.animation.Animation;
 import javafx.animation.Interpolator;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
@@ -15,6 +16,7 @@ import javafx.scene.shape.MoveTo;
 import javafx.scene.shape.Path;
 import javafx.util.Duration;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -23,6 +25,19 @@ import java.util.List;
  * @author Jia Hong
  */
 public class MouseUtil {
+
+    //the card of every animation still playing, once per animation; only used on the JavaFX thread
+    private static final List<Card> animatingCards = new ArrayList<>();
+
+    //true while a card is sliding, so the IdleMonitor does not freeze the table in the middle of a move
+    public static boolean isAnimating() {
+        return !animatingCards.isEmpty();
+    }
+
+    public static boolean isAnimating(Card card) {
+        return animatingCards.contains(card);
+    }
+
     
 	//Method to slide a single card back to its original position
 	public static void slideBack(Card card) {
@@ -84,7 +99,10 @@ public class MouseUtil {
 	            animateCardMovement(currentCard, sourceX, sourceY, targetX,
 	                    targetY + ((destPile.isEmpty() ? i : i + 1) * destCardGap), Duration.millis(150),
 	                    e -> {
-	                        currentCard.moveToPile(destPile);
+	                        //a card already in the destination stays put, so the pile is not rebuilt
+	                        if (currentCard.getContainingPile() != destPile) {
+	                            currentCard.moveToPile(destPile);
+	                        }
 	                        currentCard.getDropShadow().setRadius(2);
 	                        currentCard.getDropShadow().setOffsetX(0);
 	                        currentCard.getDropShadow().setOffsetY(0);
@@ -116,6 +134,17 @@ public class MouseUtil {
         blurReset.getKeyFrames().add(bKeyFrame);
 
         ParallelTransition pt = new ParallelTransition(card, pathTransition, blurReset);
+        //a transition that is stopped instead of finished also ends up STOPPED
+        Pile sourcePile = card.getContainingPile();
+        pt.statusProperty().addListener((observable, oldStatus, newStatus) -> {
+            if (newStatus == Animation.Status.STOPPED) {
+                animatingCards.remove(card);
+                if (sourcePile != null) {
+                    sourcePile.cardSettled();
+                }
+            }
+        });
+        animatingCards.add(card);
         pt.play();
     }
 
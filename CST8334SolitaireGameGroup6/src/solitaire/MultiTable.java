@@ -0,0 +1,176 @@
+package solitaire;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import javafx.stage.Stage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class hosts several independent games tiled in one window, for wall displays.
+ * All boards share the card images and table background loaded once by Card and Game.
+ * Run with --tables=N (default 4) and --fps to show the frame rate.
+ * Each board has its own IdleMonitor, so boards nobody plays freeze into snapshots; any input in the window
+ * counts for every board. --idle=SECONDS and --power-report work as in Main, and --fps keeps the pulses going.
+ * With --spectate one more cell shows a read-only SpectatorView that follows the first board through its SpectatorStream.
+ */
+public class MultiTable extends Application {
+
+    private static final double SCREEN_WIDTH = 1600;
+    private static final double SCREEN_HEIGHT = 1000;
+    //height reserved under each board for its memory report
+    private static final double LABEL_HEIGHT = 18;
+
+    private final List<Game> games = new ArrayList<>();
+    private final List<IdleMonitor> idleMonitors = new ArrayList<>();
+    private SpectatorView spectatorView;
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage primaryStage) {
+        int tables;
+        try {
+            tables = Integer.parseInt(getParameters().getNamed().getOrDefault("tables", "4"));
+        } catch (NumberFormatException e) {
+            tables = 0;
+        }
+        if (tables < 1) {
+            System.err.println("--tables must be a whole number of at least 1.");
+            Platform.exit();
+            return;
+        }
+        long idleMillis = IdleMonitor.parseIdleMillis(getParameters().getNamed());
+        if (idleMillis < 0) {
+            Platform.exit();
+            return;
+        }
+        boolean showFps = getParameters().getRaw().contains("--fps");
+        boolean powerReport = getParameters().getRaw().contains("--power-report");
+        boolean spectate = getParameters().getRaw().contains("--spectate");
+
+        int cells = spectate ? tables + 1 : tables;
+        int cols = (int) Math.ceil(Math.sqrt(cells));
+        int rows = (int) Math.ceil(cells / (double) cols);
+        double scale = Math.min(SCREEN_WIDTH / cols / Main.WINDOW_WIDTH,
+                (SCREEN_HEIGHT / rows - LABEL_HEIGHT) / Main.WINDOW_HEIGHT);
+
+        //load the shared assets up front so they are not charged to the first board
+        Card.loadCardImages();
+        Game.getDefaultTableBackground();
+        ImageCache.getDefault().save();
+
+        GridPane grid = new GridPane();
+        grid.setStyle("-fx-background-color: #000000;");
+        long totalBytes = 0;
+        for (int i = 0; i < tables; i++) {
+            long before = usedHeap();
+            Game game = new Game();
+            game.setTableBackground(Game.getDefaultTableBackground());
+            game.setPrefSize(Main.WINDOW_WIDTH, Main.WINDOW_HEIGHT);
+            game.setScaleX(scale);
+            game.setScaleY(scale);
+            games.add(game);
+            long bytes = Math.max(0, usedHeap() - before);
+            totalBytes += bytes;
+
+            String report = String.format("Table %d: %d nodes, %d KB", i + 1, countNodes(game), bytes / 1024);
+            System.out.println(report);
+            Text label = new Text(report);
+            label.setFill(Color.WHITE);
+            //the Group takes the scaled bounds of the board, so the grid tiles it at its scaled size
+            grid.add(new VBox(0, new Group(game), label), i % cols, i / cols);
+        }
+        if (spectate) {
+            spectatorView = new SpectatorView(games.get(0).getSpectatorStream());
+            spectatorView.setPrefSize(Main.WINDOW_WIDTH, Main.WINDOW_HEIGHT);
+            spectatorView.setScaleX(scale);
+            spectatorView.setScaleY(scale);
+            Text label = new Text("Spectating table 1");
+            label.setFill(Color.WHITE);
+            grid.add(new VBox(0, new Group(spectatorView), label), tables % cols, tables / cols);
+            spectatorView.start();
+        }
+        System.out.println(String.format("%d tables, %d KB per table on average", tables, totalBytes / 1024 / tables));
+
+        Group root = new Group(grid);
+        if (showFps) {
+            Text fps = new Text();
+            fps.setFill(Color.WHITE);
+            fps.setLayoutX(10);
+            fps.setLayoutY(SCREEN_HEIGHT - 10);
+            root.getChildren().add(fps);
+            new AnimationTimer() {
+                private long windowStart;
+                private int frames;
+
+                @Override
+                public void handle(long now) {
+                    frames++;
+                    if (windowStart == 0) {
+                        windowStart = now;
+                    } else if (now - windowStart >= 1_000_000_000L) {
+                        fps.setText(frames + " fps");
+                        frames = 0;
+                        windowStart = now;
+                    }
+                }
+            }.start();
+        }
+
+        primaryStage.setTitle("CST8334 Group6 Solitaire - " + tables + " tables");
+        Scene scene = new Scene(root, SCREEN_WIDTH, SCREEN_HEIGHT);
+        primaryStage.setScene(scene);
+        for (Game game : games) {
+            //the pulses and CPU use are for the whole window, so only the first board reports them
+            IdleMonitor monitor = new IdleMonitor(scene, game, idleMillis, powerReport && idleMonitors.isEmpty());
+            monitor.start();
+            idleMonitors.add(monitor);
+        }
+        primaryStage.show();
+    }
+
+    @Override
+    public void stop() {
+        for (IdleMonitor monitor : idleMonitors) {
+            monitor.stop();
+        }
+        if (spectatorView != null) {
+            spectatorView.stop();
+        }
+        DealPipeline.shutdown();
+        for (Game game : games) {
+            game.recordUnfinishedGame();
+        }
+        ImageCache.getDefault().save();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    //counts the node and every node below it
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+}
@@ -2,8 +2,13 @@ package solitaire;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.scene.effect.DropShadow;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.BackgroundImage;
+import javafx.scene.layout.BackgroundPosition;
+import javafx.scene.layout.BackgroundRepeat;
+import javafx.scene.layout.BackgroundSize;
 import javafx.scene.layout.Border;
 import javafx.scene.layout.BorderStroke;
 import javafx.scene.layout.BorderStrokeStyle;
@@ -14,6 +19,8 @@ import javafx.scene.paint.Color;
 
 /**
  * This class represents a pile of cards in a card game. 
+ * A pile can keep only its top cards in the scene graph; the cards below them are
+ * detached and drawn as the pile itself, a card back with a shadow as deep as the stack.
  * @author Jia Hong
  */
 public class Pile extends Pane {
@@ -25,6 +32,13 @@ public class Pile extends Pane {
     private double cardGap;
     //objects that represents the cards in the pile
     private ObservableList<Card> cards = FXCollections.observableArrayList();
+    //number of top cards kept in the scene graph
+    private int visibleDepth = Integer.MAX_VALUE;
+    //the stock and waste share this ring, the waste pile only holds the cards it shows
+    private StockRing stockRing;
+    //number of cards shown by the pile's own background instead of card nodes
+    private int stackDepth;
+    private final DropShadow depthShadow = new DropShadow(2, Color.gray(0, 0.75));
     //constructor
     public Pile(PileType pileType, String name, double cardGap) {
         this.pileType = pileType;
@@ -58,21 +72,133 @@ public class Pile extends Pane {
     public void clear() {
         cards.clear();
     }
+
+    public void setVisibleDepth(int visibleDepth) {
+        this.visibleDepth = visibleDepth;
+    }
+
+    void setStockRing(StockRing stockRing) {
+        this.stockRing = stockRing;
+    }
+
     //adds a Card object to the pile and updates its layout
     public void addCard(Card card) {
         cards.add(card);
         card.setContainingPile(this);
+        attach(card);
         card.toFront();
-        layoutCard(card);
+        layoutCard(card, cards.size() - 1);
+        if (cards.size() > visibleDepth) {
+            detach(cards.get(cards.size() - 1 - visibleDepth));
+            setStackDepth(cards.size() - visibleDepth);
+        }
+    }
+
+    //puts a Card object under the cards already in the pile
+    public void addCardAtBottom(Card card) {
+        cards.add(0, card);
+        card.setContainingPile(this);
+        attach(card);
+        for (int i = 0; i < cards.size(); i++) {
+            cards.get(i).toFront();
+            layoutCard(cards.get(i), i);
+        }
+    }
+
+    //removes a Card object that is leaving the pile and shows the card that comes into view under the top cards
+    public void removeCard(Card card) {
+        cards.remove(card);
+        if (stockRing != null) {
+            stockRing.wasteCardRemoved(card);
+        } else if (cards.size() >= visibleDepth && visibleDepth > 0) {
+            int first = cards.size() - visibleDepth;
+            attach(cards.get(first));
+            for (int i = first + 1; i < cards.size(); i++) {
+                cards.get(i).toFront();
+            }
+            setStackDepth(first);
+        }
+    }
+
+    //removes the bottom card, which no longer needs to be shown
+    //drops cards from the bottom until keep are left, stopping at a card that is still sliding
+    public void trimTo(int keep) {
+        while (cards.size() > keep && !MouseUtil.isAnimating(cards.get(0))) {
+            dropBottomCard();
+        }
+    }
+
+    //called when a card that left this pile stops sliding, so the waste can drop the cards it kept for it
+    void cardSettled() {
+        if (stockRing != null) {
+            stockRing.trimWaste();
+        }
     }
+
+    public Card dropBottomCard() {
+        Card card = cards.remove(0);
+        detach(card);
+        for (int i = 0; i < cards.size(); i++) {
+            layoutCard(cards.get(i), i);
+        }
+        return card;
+    }
+
+    //shows the cards that are not in the scene graph as a card back with a shadow as deep as the stack
+    public void setStackDepth(int depth) {
+        if (depth == 0) {
+            if (stackDepth != 0) {
+                setWhiteStrokeBackground();
+                setEffect(null);
+            }
+            stackDepth = 0;
+            return;
+        }
+        if (stackDepth == 0) {
+            showStackBackground();
+            setBorder(null);
+            setEffect(depthShadow);
+        }
+        stackDepth = depth;
+        double offset = Math.min(depth, 24) * 0.25;
+        depthShadow.setOffsetX(offset);
+        depthShadow.setOffsetY(offset);
+    }
+
+    private void showStackBackground() {
+        setBackground(new Background(new BackgroundImage(Theme.getActive().getBack(),
+                BackgroundRepeat.NO_REPEAT, BackgroundRepeat.NO_REPEAT, BackgroundPosition.DEFAULT,
+                new BackgroundSize(Card.WIDTH, Card.HEIGHT, false, false, false, false))));
+    }
+
+    //redraws the stacked cards of the pile in the active theme; Game redraws the cards themselves
+    void refreshTheme() {
+        if (stackDepth != 0) {
+            showStackBackground();
+        }
+    }
+
+    //the cards are drawn by the Pane that holds the piles
+    private void attach(Card card) {
+        if (getParent() instanceof Pane && card.getParent() == null) {
+            ((Pane) getParent()).getChildren().add(card);
+        }
+    }
+
+    private void detach(Card card) {
+        if (getParent() instanceof Pane) {
+            ((Pane) getParent()).getChildren().remove(card);
+        }
+    }
+
     //lays out a Card object in the pile according to its position and size
-    private void layoutCard(Card card) {
+    private void layoutCard(Card card, int index) {
     	//The getLayoutX() and getLayoutY() methods get the current layout position of the card
         card.relocate(card.getLayoutX() + card.getTranslateX(), card.getLayoutY() + card.getTranslateY());
         card.setTranslateX(0);
         card.setTranslateY(0);
         card.setLayoutX(getLayoutX());
-        card.setLayoutY(getLayoutY() + (cards.size() - 1) * cardGap);
+        card.setLayoutY(getLayoutY() + index * cardGap);
     }
 
     public Card getTopCard() {
@@ -0,0 +1,218 @@
+package solitaire;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class searches a GameState for a way to win, depth first with the most promising moves tried first.
+ * Drawing is not searched card by card: every card that drawing can bring to the top of the waste is
+ * offered as one move that draws as often as needed and then plays that card.
+ * Positions that were already searched are skipped and the search gives up after a number of positions,
+ * so a deal that is not solved within the limit is treated as unsolvable.
+ */
+public class Solver {
+
+    public static final int DEFAULT_NODE_LIMIT = 50_000;
+    //deepest line searched, which also bounds the recursion
+    private static final int MAX_DEPTH = 1000;
+    //a search move is a GameState move with the number of draws to make first in the top bits
+    private static final int DRAWS_SHIFT = 24;
+    private static final int MOVE_MASK = (1 << DRAWS_SHIFT) - 1;
+
+    private final int nodeLimit;
+    private final LongSet visited = new LongSet();
+    //one move buffer per search depth, reused between positions
+    private final List<int[]> moveBuffers = new ArrayList<>();
+    private final int[] priorities = new int[GameState.MAX_LEGAL_MOVES];
+    private int nodes;
+    private GameState solution;
+
+    /**
+     * This is the outcome of one search.
+     */
+    public static class Result {
+        public final boolean solved;
+        //positions searched
+        public final int nodes;
+        //moves and stock passes in the winning line that was found, 0 when not solved
+        public final int moves;
+        public final int stockPasses;
+
+        Result(boolean solved, int nodes, int moves, int stockPasses) {
+            this.solved = solved;
+            this.nodes = nodes;
+            this.moves = moves;
+            this.stockPasses = stockPasses;
+        }
+    }
+
+    public Solver(int nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    public Result solve(GameState start) {
+        visited.clear();
+        nodes = 0;
+        solution = null;
+        search(new GameState(start), 0);
+        if (solution == null) {
+            return new Result(false, nodes, 0, 0);
+        }
+        return new Result(true, nodes, solution.getMoveCount() - start.getMoveCount(),
+                solution.getStockPasses() - start.getStockPasses());
+    }
+
+    private boolean search(GameState state, int depth) {
+        if (state.isGameWon()) {
+            solution = state;
+            return true;
+        }
+        if (nodes >= nodeLimit || depth >= MAX_DEPTH || !visited.add(state.stateHash())) {
+            return false;
+        }
+        nodes++;
+        if (moveBuffers.size() == depth) {
+            moveBuffers.add(new int[GameState.MAX_LEGAL_MOVES]);
+        }
+        int[] moves = moveBuffers.get(depth);
+        int count = orderMoves(state, moves, candidateMoves(state, moves));
+        for (int i = 0; i < count; i++) {
+            GameState next = new GameState(state);
+            for (int draws = moves[i] >>> DRAWS_SHIFT; draws > 0; draws--) {
+                next.draw();
+            }
+            next.apply(moves[i] & MOVE_MASK);
+            if (search(next, depth + 1)) {
+                return true;
+            }
+            if (nodes >= nodeLimit) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    //the legal moves without DRAW, plus a move for every card that drawing can bring to the top of the waste
+    private static int candidateMoves(GameState state, int[] moves) {
+        int count = state.legalMoves(moves);
+        if (count > 0 && moves[count - 1] == GameState.DRAW) {
+            count--;
+        }
+        int cycle = state.size(GameState.STOCK) + state.size(GameState.WASTE);
+        if (cycle == 0) {
+            return count;
+        }
+        GameState drawn = new GameState(state);
+        //one more draw than the cycle turns the waste back over once
+        for (int draws = 1; draws <= cycle + 1 && count < moves.length - GameState.PILE_COUNT; draws++) {
+            drawn.draw();
+            int card = drawn.topCard(GameState.WASTE);
+            if (card < 0) continue;
+            for (int dest = GameState.FIRST_FOUNDATION; dest < GameState.PILE_COUNT; dest++) {
+                if (drawn.isMoveValid(card, dest)) {
+                    moves[count++] = draws << DRAWS_SHIFT | GameState.encodeMove(GameState.WASTE, dest, 1);
+                }
+            }
+        }
+        return count;
+    }
+
+    //drops moves that cannot help and sorts the rest, most promising first; returns how many are left
+    private int orderMoves(GameState state, int[] moves, int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int priority = priority(state, move);
+            if (priority < 0) continue;
+            //insertion sort, the lists are short
+            int j = kept++;
+            while (j > 0 && priorities[j - 1] < priority) {
+                moves[j] = moves[j - 1];
+                priorities[j] = priorities[j - 1];
+                j--;
+            }
+            moves[j] = move;
+            priorities[j] = priority;
+        }
+        return kept;
+    }
+
+    //higher is tried first, negative means the move is skipped
+    private static int priority(GameState state, int move) {
+        int draws = move >>> DRAWS_SHIFT;
+        move &= MOVE_MASK;
+        int source = GameState.moveSource(move);
+        int dest = GameState.moveDest(move);
+        int count = GameState.moveCardCount(move);
+        if (source == GameState.WASTE) {
+            //cards that need fewer draws first
+            return (GameState.isFoundation(dest) ? 90 : 50) - Math.min(draws, 40);
+        }
+        if (GameState.isFoundation(dest)) {
+            return 100;
+        }
+        if (GameState.isFoundation(source)) {
+            return 5;
+        }
+        int left = state.size(source) - count;
+        if (left == 0) {
+            //a king that already sits on an empty pile gains nothing by moving to another one
+            return state.size(dest) == 0 ? -1 : 60;
+        }
+        if (left == state.faceDownCount(source)) {
+            //turns a face-down card over
+            return 80 + left;
+        }
+        //splitting a run only helps when the card it uncovers can go to a foundation
+        int uncovered = state.card(source, left - 1);
+        for (int pile = GameState.FIRST_FOUNDATION; pile < GameState.FIRST_TABLEAU; pile++) {
+            if (state.isMoveValid(uncovered, pile)) {
+                return 40;
+            }
+        }
+        return -1;
+    }
+
+    //open addressing set of position hashes, without boxing every hash into a Long
+    private static class LongSet {
+        private long[] slots = new long[1 << 12];
+        private boolean hasZero;
+        private int size;
+
+        //returns false when the value was already in the set
+        boolean add(long value) {
+            if (value == 0) {
+                boolean added = !hasZero;
+                hasZero = true;
+                return added;
+            }
+            int mask = slots.length - 1;
+            int i = (int) (value ^ (value >>> 32)) & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == value) return false;
+                i = (i + 1) & mask;
+            }
+            slots[i] = value;
+            if (++size * 2 > slots.length) {
+                grow();
+            }
+            return true;
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            size = 0;
+            for (long value : old) {
+                if (value != 0) add(value);
+            }
+        }
+
+        void clear() {
+            Arrays.fill(slots, 0);
+            hasZero = false;
+            size = 0;
+        }
+    }
+}
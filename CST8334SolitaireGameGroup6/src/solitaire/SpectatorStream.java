@@ -0,0 +1,196 @@
+package solitaire;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class broadcasts one game to any number of in-process spectators.
+ * A new deal is sent as a snapshot of the 13 piles (see SpectatorTable) and every move after it as a 4 byte delta:
+ * source and destination pile, number of cards, flags and the card that was turned face up.
+ * <p>
+ * The deltas go into one ring shared by every subscriber, and each subscriber only keeps its own cursor,
+ * so publishing never waits for a spectator and costs the same for one spectator or a thousand.
+ * A subscriber that falls more than a ring behind loads the latest snapshot and carries on from there.
+ * Only one thread may publish; each subscriber is polled by one thread at a time.
+ */
+public class SpectatorStream {
+
+    //deltas kept in the ring, a power of two
+    public static final int CAPACITY = 1024;
+    //a snapshot is kept every this many deltas so a lagging subscriber can catch up from inside the ring
+    static final int SNAPSHOT_INTERVAL = CAPACITY / 4;
+
+    //delta flags
+    //the new top card of the source pile was turned face up, and is the card of the delta
+    public static final int REVEAL_SOURCE = 1;
+    //the moved card was turned face up, and is the card of the delta; set when drawing from the stock
+    public static final int REVEAL_MOVED = 2;
+    //the moved cards were turned face down; set when the waste is turned back into the stock
+    public static final int TURN_DOWN = 4;
+    //a new deal, the subscriber loads the latest snapshot
+    public static final int RESET = 0x80;
+    static final int NO_CARD = 0xFF;
+
+    private final AtomicIntegerArray ring = new AtomicIntegerArray(CAPACITY);
+    //number of deltas published so far; delta n is in ring slot n % CAPACITY
+    private volatile long published;
+    private volatile Snapshot latest;
+    //the table as spectators know it, kept by the publishing thread to make the snapshots
+    private final SpectatorTable master = new SpectatorTable();
+
+    /**
+     * This is the table as it was after the first sequence deltas.
+     */
+    public static class Snapshot {
+        public final byte[] table;
+        public final long sequence;
+
+        Snapshot(byte[] table, long sequence) {
+            this.table = table;
+            this.sequence = sequence;
+        }
+    }
+
+    public SpectatorStream() {
+        latest = new Snapshot(master.encode(), 0);
+    }
+
+    //a move is packed as source << 28 | dest << 24 | count << 16 | flags << 8 | card
+    public static int delta(int source, int dest, int count, int flags, int card) {
+        return source << 28 | dest << 24 | count << 16 | flags << 8 | (card & 0xFF);
+    }
+
+    public static int deltaSource(int delta) {
+        return delta >>> 28;
+    }
+
+    public static int deltaDest(int delta) {
+        return (delta >>> 24) & 0xF;
+    }
+
+    public static int deltaCount(int delta) {
+        return (delta >>> 16) & 0xFF;
+    }
+
+    public static int deltaFlags(int delta) {
+        return (delta >>> 8) & 0xFF;
+    }
+
+    public static int deltaCard(int delta) {
+        return delta & 0xFF;
+    }
+
+    //starts a new deal
+    public void reset(SpectatorTable table) {
+        master.load(table.encode());
+        long sequence = published;
+        ring.set((int) (sequence & (CAPACITY - 1)), delta(0, 0, 0, RESET, NO_CARD));
+        latest = new Snapshot(master.encode(), sequence + 1);
+        published = sequence + 1;
+    }
+
+    public void publish(int delta) {
+        master.apply(delta);
+        long sequence = published;
+        ring.set((int) (sequence & (CAPACITY - 1)), delta);
+        if ((sequence + 1) % SNAPSHOT_INTERVAL == 0) {
+            latest = new Snapshot(master.encode(), sequence + 1);
+        }
+        published = sequence + 1;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public Snapshot getLatestSnapshot() {
+        return latest;
+    }
+
+    //a new spectator, which starts from the latest snapshot
+    public Subscriber subscribe() {
+        return new Subscriber(this);
+    }
+
+    /**
+     * This is one spectator's view of the stream.
+     */
+    public static class Subscriber {
+        private final SpectatorStream stream;
+        private final SpectatorTable table = new SpectatorTable();
+        private final int[] batch = new int[CAPACITY];
+        private long cursor;
+        private int snapshotsLoaded;
+        private int lagRecoveries;
+
+        Subscriber(SpectatorStream stream) {
+            this.stream = stream;
+            loadSnapshot();
+        }
+
+        //applies every delta published since the last poll and returns how many there were; never blocks
+        public int poll() {
+            int applied = 0;
+            while (true) {
+                long end = stream.published;
+                if (end - cursor >= CAPACITY) {
+                    lagRecoveries++;
+                    loadSnapshot();
+                    continue;
+                }
+                int count = (int) (end - cursor);
+                if (count <= 0) {
+                    return applied;
+                }
+                for (int i = 0; i < count; i++) {
+                    batch[i] = stream.ring.get((int) ((cursor + i) & (CAPACITY - 1)));
+                }
+                //the publisher may have gone round the ring while the deltas were copied
+                if (stream.published - cursor >= CAPACITY) {
+                    lagRecoveries++;
+                    loadSnapshot();
+                    continue;
+                }
+                boolean reset = false;
+                for (int i = 0; i < count; i++) {
+                    if ((deltaFlags(batch[i]) & RESET) != 0) {
+                        reset = true;
+                        break;
+                    }
+                    table.apply(batch[i]);
+                    applied++;
+                }
+                if (reset) {
+                    loadSnapshot();
+                    continue;
+                }
+                cursor = end;
+                return applied;
+            }
+        }
+
+        private void loadSnapshot() {
+            Snapshot snapshot = stream.latest;
+            table.load(snapshot.table);
+            cursor = snapshot.sequence;
+            snapshotsLoaded++;
+        }
+
+        public SpectatorTable getTable() {
+            return table;
+        }
+
+        public long getCursor() {
+            return cursor;
+        }
+
+        //number of snapshots taken, for new deals, after falling behind and the first one
+        public int getSnapshotsLoaded() {
+            return snapshotsLoaded;
+        }
+
+        //number of times the subscriber fell a ring behind and caught up from a snapshot
+        public int getLagRecoveries() {
+            return lagRecoveries;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package solitaire;
+
+import java.util.Arrays;
+
+/**
+ * This class is what a spectator knows of a table: the cards of the 13 GameState piles, with the cards
+ * a spectator cannot see stored as UNKNOWN. It is rebuilt from a snapshot and kept up to date by applying
+ * the deltas of a SpectatorStream.
+ * <p>
+ * A snapshot is, for every pile, its size, the number of hidden cards at its bottom and then the ordinals
+ * of the visible cards, so a whole table takes at most 78 bytes. Only the top card of the waste is sent.
+ */
+public class SpectatorTable {
+
+    public static final int UNKNOWN = -1;
+
+    //pile p holds its cards, bottom first, in cards[p * DECK_SIZE] onwards, as in GameState
+    private final byte[] cards = new byte[GameState.PILE_COUNT * GameState.DECK_SIZE];
+    private final int[] sizes = new int[GameState.PILE_COUNT];
+
+    //what a spectator sees of a headless game
+    public static SpectatorTable of(GameState state) {
+        SpectatorTable table = new SpectatorTable();
+        for (int pile = 0; pile < GameState.PILE_COUNT; pile++) {
+            for (int i = 0; i < state.size(pile); i++) {
+                table.push(pile, i < state.faceDownCount(pile) ? UNKNOWN : state.card(pile, i));
+            }
+        }
+        return table;
+    }
+
+    public void clear() {
+        for (int pile = 0; pile < GameState.PILE_COUNT; pile++) {
+            sizes[pile] = 0;
+        }
+    }
+
+    //adds a card, or UNKNOWN for a hidden one, on top of the pile
+    public void push(int pile, int card) {
+        cards[pile * GameState.DECK_SIZE + sizes[pile]++] = (byte) card;
+    }
+
+    public int size(int pile) {
+        return sizes[pile];
+    }
+
+    public int card(int pile, int index) {
+        return cards[pile * GameState.DECK_SIZE + index];
+    }
+
+    //applies one move of a SpectatorStream; a RESET is handled by the subscriber, which loads a snapshot instead
+    public void apply(int delta) {
+        int source = SpectatorStream.deltaSource(delta);
+        int dest = SpectatorStream.deltaDest(delta);
+        int count = SpectatorStream.deltaCount(delta);
+        int flags = SpectatorStream.deltaFlags(delta);
+        int card = SpectatorStream.deltaCard(delta);
+        int from = sizes[source] - count;
+        if ((flags & SpectatorStream.TURN_DOWN) != 0) {
+            //the waste turned back into the stock; its cards are hidden again
+            for (int i = 0; i < count; i++) {
+                push(dest, UNKNOWN);
+            }
+        } else {
+            System.arraycopy(cards, source * GameState.DECK_SIZE + from,
+                    cards, dest * GameState.DECK_SIZE + sizes[dest], count);
+            sizes[dest] += count;
+        }
+        sizes[source] = from;
+        if ((flags & SpectatorStream.REVEAL_MOVED) != 0) {
+            cards[dest * GameState.DECK_SIZE + sizes[dest] - 1] = (byte) card;
+        }
+        if ((flags & SpectatorStream.REVEAL_SOURCE) != 0 && from > 0) {
+            cards[source * GameState.DECK_SIZE + from - 1] = (byte) card;
+        }
+    }
+
+    //number of cards at the bottom of the pile a spectator is not shown
+    private int hiddenCount(int pile) {
+        if (pile == GameState.STOCK) {
+            return sizes[pile];
+        }
+        if (pile == GameState.WASTE) {
+            return Math.max(0, sizes[pile] - 1);
+        }
+        int hidden = 0;
+        while (hidden < sizes[pile] && card(pile, hidden) == UNKNOWN) {
+            hidden++;
+        }
+        return hidden;
+    }
+
+    public byte[] encode() {
+        byte[] snapshot = new byte[2 * GameState.PILE_COUNT + GameState.DECK_SIZE];
+        int n = 0;
+        for (int pile = 0; pile < GameState.PILE_COUNT; pile++) {
+            int hidden = hiddenCount(pile);
+            snapshot[n++] = (byte) sizes[pile];
+            snapshot[n++] = (byte) hidden;
+            for (int i = hidden; i < sizes[pile]; i++) {
+                snapshot[n++] = (byte) card(pile, i);
+            }
+        }
+        return Arrays.copyOf(snapshot, n);
+    }
+
+    public void load(byte[] snapshot) {
+        clear();
+        int n = 0;
+        for (int pile = 0; pile < GameState.PILE_COUNT; pile++) {
+            int size = snapshot[n++];
+            int hidden = snapshot[n++];
+            for (int i = 0; i < size; i++) {
+                push(pile, i < hidden ? UNKNOWN : snapshot[n++]);
+            }
+        }
+    }
+
+    //the piles as a spectator sees them, hidden cards counted in brackets, e.g. "[3]40,12"
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int pile = 0; pile < GameState.PILE_COUNT; pile++) {
+            if (pile > 0) sb.append('/');
+            int hidden = hiddenCount(pile);
+            if (hidden > 0) sb.append('[').append(hidden).append(']');
+            for (int i = hidden; i < sizes[pile]; i++) {
+                if (i > hidden) sb.append(',');
+                sb.append(card(pile, i));
+            }
+        }
+        return sb.toString();
+    }
+}
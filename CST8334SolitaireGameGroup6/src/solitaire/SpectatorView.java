@@ -0,0 +1,101 @@
+package solitaire;
+
+import javafx.application.Platform;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundImage;
+import javafx.scene.layout.BackgroundPosition;
+import javafx.scene.layout.BackgroundRepeat;
+import javafx.scene.layout.BackgroundSize;
+import javafx.scene.layout.Pane;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is a read-only mirror of a table for a spectator. It follows the table's SpectatorStream with its own
+ * Subscriber and draws what a spectator knows in the active theme, with the hidden cards showing their back.
+ * <p>
+ * A timer thread asks for a poll a few times a second; the poll itself and the drawing run on the JavaFX thread,
+ * and the board is only redrawn when a move or a new deal came in, so a quiet table asks for no pulses.
+ */
+public class SpectatorView extends Pane {
+
+    private static final long POLL_MILLIS = 100;
+    //where Game puts its piles
+    private static final double TOP_Y = 20;
+    private static final double STOCK_X = 95;
+    private static final double WASTE_X = 230;
+    private static final double FOUNDATION_X = 500;
+    private static final double FOUNDATION_STEP = 125;
+    private static final double TABLEAU_X = 95;
+    private static final double TABLEAU_Y = 275;
+    private static final double TABLEAU_STEP = 130;
+    private static final double TABLEAU_GAP = 30;
+
+    private final SpectatorStream.Subscriber subscriber;
+    private final ScheduledExecutorService timer;
+    //snapshots the subscriber had loaded at the last redraw, a new deal loads another
+    private int snapshotsDrawn = -1;
+
+    public SpectatorView(SpectatorStream stream) {
+        subscriber = stream.subscribe();
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "spectator-view");
+            thread.setDaemon(true);
+            return thread;
+        });
+        setBackground(new Background(new BackgroundImage(Theme.getActive().getTable(),
+                BackgroundRepeat.REPEAT, BackgroundRepeat.REPEAT,
+                BackgroundPosition.CENTER, BackgroundSize.DEFAULT)));
+        redraw();
+    }
+
+    public void start() {
+        timer.scheduleWithFixedDelay(() -> Platform.runLater(this::refresh), POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    private void refresh() {
+        if (subscriber.poll() > 0 || subscriber.getSnapshotsLoaded() != snapshotsDrawn) {
+            redraw();
+        }
+    }
+
+    private void redraw() {
+        snapshotsDrawn = subscriber.getSnapshotsLoaded();
+        SpectatorTable table = subscriber.getTable();
+        getChildren().clear();
+        //the stock, waste and foundations only show their top card
+        showTop(table, GameState.STOCK, STOCK_X);
+        showTop(table, GameState.WASTE, WASTE_X);
+        for (int i = 0; i < 4; i++) {
+            showTop(table, GameState.FIRST_FOUNDATION + i, FOUNDATION_X + i * FOUNDATION_STEP);
+        }
+        for (int pile = GameState.FIRST_TABLEAU; pile < GameState.PILE_COUNT; pile++) {
+            double x = TABLEAU_X + (pile - GameState.FIRST_TABLEAU) * TABLEAU_STEP;
+            for (int i = 0; i < table.size(pile); i++) {
+                addCard(table.card(pile, i), x, TABLEAU_Y + i * TABLEAU_GAP);
+            }
+        }
+    }
+
+    private void showTop(SpectatorTable table, int pile, double x) {
+        int size = table.size(pile);
+        if (size > 0) {
+            addCard(table.card(pile, size - 1), x, TOP_Y);
+        }
+    }
+
+    private void addCard(int card, double x, double y) {
+        Theme theme = Theme.getActive();
+        ImageView view = new ImageView(card == SpectatorTable.UNKNOWN ? theme.getBack() : theme.getFace(card));
+        view.setLayoutX(x);
+        view.setLayoutY(y);
+        getChildren().add(view);
+    }
+}
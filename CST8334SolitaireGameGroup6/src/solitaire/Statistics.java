@@ -0,0 +1,287 @@
+package solitaire;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * This class keeps the player statistics. Every finished game is appended to a local file as one
+ * fixed-width record, and the running totals are kept in memory so the stats screen never rescans history.
+ * <p>
+ * The file starts with a header that holds the totals and how many records they already include.
+ * On startup only the records after that point are read, then the header is rewritten. When the log
+ * grows past twice HISTORY_LIMIT it is compacted to the most recent HISTORY_LIMIT records.
+ */
+public class Statistics {
+
+    public static final int VARIANT_CLASSIC = 0;
+    public static final int VARIANT_EASY = 1;
+    public static final int VARIANT_MEDIUM = 2;
+    public static final int VARIANT_HARD = 3;
+    public static final int VARIANT_WINNABLE = 4;
+    public static final int VARIANT_COUNT = 8;
+    private static final String[] VARIANT_NAMES = {"Classic", "Easy", "Medium", "Hard", "Winnable"};
+
+    //number of records kept after compaction
+    public static final int HISTORY_LIMIT = 100_000;
+
+    private static final int MAGIC = 0x534f4c53; // "SOLS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 128;
+    //header bytes covered by the checksum stored at CRC_OFFSET
+    private static final int CRC_OFFSET = 120;
+    //finishedAt (8), durationMillis (4), moves (2), variant (1), won (1)
+    static final int RECORD_SIZE = 16;
+    //records read per call when scanning the log
+    private static final int READ_BATCH = 4096;
+
+    private static Statistics defaultStatistics;
+
+    private final Path file;
+    private FileChannel channel;
+    //number of records in the log, all of which are included in the totals below
+    private long records;
+
+    private int gamesPlayed;
+    private int gamesWon;
+    private int currentStreak;
+    private int bestStreak;
+    //fastest win and fewest moves in a win, 0 until the first win
+    private int bestTimeMillis;
+    private int fewestMoves;
+    private final int[] variantPlayed = new int[VARIANT_COUNT];
+    private final int[] variantWon = new int[VARIANT_COUNT];
+
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+
+    public Statistics(Path file) throws IOException {
+        this.file = file;
+        load();
+    }
+
+    //the statistics file in the user's home folder, shared by every Game in the JVM
+    public static synchronized Statistics getDefault() {
+        if (defaultStatistics == null) {
+            Path path = Paths.get(System.getProperty("user.home"), ".cst8334solitaire", "stats.dat");
+            try {
+                Files.createDirectories(path.getParent());
+                defaultStatistics = new Statistics(path);
+            } catch (IOException e) {
+                System.err.println("An exception occurred while loading statistics: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        return defaultStatistics;
+    }
+
+    public static String getVariantName(int variant) {
+        return variant < VARIANT_NAMES.length ? VARIANT_NAMES[variant] : "Variant " + variant;
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long covered = readHeader() ? records : 0;
+        if (covered == 0) {
+            resetTotals();
+        }
+        long available = Math.max(0, channel.size() - HEADER_SIZE) / RECORD_SIZE;
+        if (covered > available) {
+            //the header does not match the log, so the totals are rebuilt from the records
+            resetTotals();
+            covered = 0;
+        }
+        replay(covered, available);
+        records = available;
+        //drops a record that was only partly written
+        channel.truncate(HEADER_SIZE + records * RECORD_SIZE);
+
+        if (records > 2L * HISTORY_LIMIT) {
+            compact();
+        } else {
+            writeHeader();
+        }
+    }
+
+    //reads the totals from the header, returning false when it is missing or damaged
+    private boolean readHeader() throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, CRC_OFFSET);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(CRC_OFFSET) != (int) crc.getValue()) {
+            return false;
+        }
+        header.position(8);
+        records = header.getLong();
+        gamesPlayed = header.getInt();
+        gamesWon = header.getInt();
+        currentStreak = header.getInt();
+        bestStreak = header.getInt();
+        bestTimeMillis = header.getInt();
+        fewestMoves = header.getInt();
+        for (int i = 0; i < VARIANT_COUNT; i++) {
+            variantPlayed[i] = header.getInt();
+            variantWon[i] = header.getInt();
+        }
+        return true;
+    }
+
+    private ByteBuffer encodeHeader() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(records);
+        header.putInt(gamesPlayed).putInt(gamesWon).putInt(currentStreak).putInt(bestStreak);
+        header.putInt(bestTimeMillis).putInt(fewestMoves);
+        for (int i = 0; i < VARIANT_COUNT; i++) {
+            header.putInt(variantPlayed[i]).putInt(variantWon[i]);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, CRC_OFFSET);
+        header.putInt(CRC_OFFSET, (int) crc.getValue());
+        header.clear();
+        return header;
+    }
+
+    private void writeHeader() throws IOException {
+        channel.write(encodeHeader(), 0);
+    }
+
+    private void resetTotals() {
+        gamesPlayed = 0;
+        gamesWon = 0;
+        currentStreak = 0;
+        bestStreak = 0;
+        bestTimeMillis = 0;
+        fewestMoves = 0;
+        Arrays.fill(variantPlayed, 0);
+        Arrays.fill(variantWon, 0);
+    }
+
+    //adds the records in [from, to) to the totals, reading the log in large batches
+    private void replay(long from, long to) throws IOException {
+        ByteBuffer batch = ByteBuffer.allocateDirect(READ_BATCH * RECORD_SIZE);
+        long position = HEADER_SIZE + from * RECORD_SIZE;
+        long end = HEADER_SIZE + to * RECORD_SIZE;
+        while (position < end) {
+            batch.clear();
+            batch.limit((int) Math.min(batch.capacity(), end - position));
+            while (batch.hasRemaining()) {
+                if (channel.read(batch, position + batch.position()) < 0) break;
+            }
+            batch.flip();
+            position += batch.limit();
+            while (batch.remaining() >= RECORD_SIZE) {
+                batch.getLong();
+                int durationMillis = batch.getInt();
+                int moves = batch.getShort() & 0xFFFF;
+                int variant = batch.get();
+                boolean won = batch.get() != 0;
+                add(durationMillis, moves, variant, won);
+            }
+        }
+    }
+
+    private void add(int durationMillis, int moves, int variant, boolean won) {
+        gamesPlayed++;
+        if (variant >= 0 && variant < VARIANT_COUNT) {
+            variantPlayed[variant]++;
+        }
+        if (won) {
+            gamesWon++;
+            if (variant >= 0 && variant < VARIANT_COUNT) {
+                variantWon[variant]++;
+            }
+            currentStreak++;
+            bestStreak = Math.max(bestStreak, currentStreak);
+            if (bestTimeMillis == 0 || durationMillis < bestTimeMillis) bestTimeMillis = durationMillis;
+            if (fewestMoves == 0 || moves < fewestMoves) fewestMoves = moves;
+        } else {
+            currentStreak = 0;
+        }
+    }
+
+    //rewrites the log with only the newest HISTORY_LIMIT records; the totals stay in the header
+    private void compact() throws IOException {
+        long keep = HISTORY_LIMIT;
+        long from = HEADER_SIZE + (records - keep) * RECORD_SIZE;
+        records = keep;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(encodeHeader(), 0);
+            long copied = 0;
+            while (copied < keep * RECORD_SIZE) {
+                copied += channel.transferTo(from + copied, keep * RECORD_SIZE - copied, out.position(HEADER_SIZE + copied));
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    //appends one finished game to the log and updates the totals
+    public synchronized void recordGame(long durationMillis, int moves, int variant, boolean won) {
+        int duration = (int) Math.min(Integer.MAX_VALUE, durationMillis);
+        int moveCount = Math.min(0xFFFF, moves);
+        add(duration, moveCount, variant, won);
+        recordBuffer.clear();
+        recordBuffer.putLong(System.currentTimeMillis()).putInt(duration).putShort((short) moveCount)
+                .put((byte) variant).put((byte) (won ? 1 : 0));
+        recordBuffer.flip();
+        try {
+            channel.write(recordBuffer, HEADER_SIZE + records * RECORD_SIZE);
+            records++;
+        } catch (IOException e) {
+            System.err.println("An exception occurred while saving statistics: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized int getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    public synchronized int getGamesWon() {
+        return gamesWon;
+    }
+
+    public synchronized int getCurrentStreak() {
+        return currentStreak;
+    }
+
+    public synchronized int getBestStreak() {
+        return bestStreak;
+    }
+
+    public synchronized int getBestTimeMillis() {
+        return bestTimeMillis;
+    }
+
+    public synchronized int getFewestMoves() {
+        return fewestMoves;
+    }
+
+    public synchronized int getVariantPlayed(int variant) {
+        return variantPlayed[variant];
+    }
+
+    public synchronized int getVariantWon(int variant) {
+        return variantWon[variant];
+    }
+
+    //win rate as a percentage, 0 when no game of the variant has been played
+    public synchronized double getWinRate(int variant) {
+        return variantPlayed[variant] == 0 ? 0 : 100.0 * variantWon[variant] / variantPlayed[variant];
+    }
+}
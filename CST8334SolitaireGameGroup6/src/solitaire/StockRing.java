@@ -0,0 +1,98 @@
+package solitaire;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class holds the stock and the waste as one list with a cursor: the cards before the cursor
+ * are the waste and the cards from the cursor on are the stock, in the order they will be drawn.
+ * Drawing moves the cursor forward and turning the waste back over resets it, so neither moves cards around.
+ * The stock pile shows no card nodes at all, and the waste pile only holds its top WASTE_WINDOW cards.
+ */
+public class StockRing {
+
+    //number of waste cards kept in the scene graph, the top card and the one under it while it is dragged
+    static final int WASTE_WINDOW = 2;
+
+    private final List<Card> cards = new ArrayList<>();
+    //number of cards that have been drawn to the waste
+    private int drawn;
+
+    private final Pile stockPile;
+    private final Pile wastePile;
+
+    public StockRing(Pile stockPile, Pile wastePile) {
+        this.stockPile = stockPile;
+        this.wastePile = wastePile;
+        wastePile.setStockRing(this);
+    }
+
+    //takes the cards dealt to the stock; the last one dealt is drawn first, as when they were stacked on the stock pile
+    public void deal(List<Card> stockCards) {
+        cards.clear();
+        for (int i = stockCards.size() - 1; i >= 0; i--) {
+            Card card = stockCards.get(i);
+            card.setContainingPile(stockPile);
+            cards.add(card);
+        }
+        drawn = 0;
+        stockPile.setStackDepth(stockCount());
+    }
+
+    public int stockCount() {
+        return cards.size() - drawn;
+    }
+
+    public int wasteCount() {
+        return drawn;
+    }
+
+    //returns the waste card below the top count cards, or null when there is none
+    Card wasteCardBelow(int count) {
+        return drawn > count ? cards.get(drawn - count - 1) : null;
+    }
+
+    //turns the next stock card face up onto the waste, returns null when the stock is empty
+    public Card draw() {
+        if (drawn == cards.size()) {
+            return null;
+        }
+        Card card = cards.get(drawn++);
+        if (card.isFaceDown()) {
+            card.flip();
+        }
+        wastePile.addCard(card);
+        trimWaste();
+        stockPile.setStackDepth(stockCount());
+        return card;
+    }
+
+    //turns the waste back over into the stock; the cards are already in drawing order so only the cursor moves
+    public void recycle() {
+        drawn = 0;
+        trimWaste();
+        stockPile.setStackDepth(stockCount());
+    }
+
+    //keeps at most WASTE_WINDOW waste cards in the scene graph; a card still sliding stays until its animation ends
+    void trimWaste() {
+        wastePile.trimTo(Math.min(WASTE_WINDOW, drawn));
+    }
+
+    //called by the waste pile when its top card is taken, shows the next waste card under the ones still visible
+    void wasteCardRemoved(Card card) {
+        //by identity, the stock may have been drawn from while the card was sliding away
+        int index = cards.lastIndexOf(card);
+        if (index < 0) {
+            return;
+        }
+        cards.remove(index);
+        if (index < drawn) {
+            drawn--;
+        }
+        int hidden = drawn - wastePile.numOfCards();
+        if (hidden > 0) {
+            wastePile.addCardAtBottom(cards.get(hidden - 1));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package solitaire;
+
+import javafx.scene.image.Image;
+
+/**
+ * This class is one look of the game from the AssetManifest: the card faces, the card back and the table background.
+ * Each image is loaded the first time it is shown, so starting a game only reads the back, the table
+ * and the faces of the cards that are dealt face up.
+ * The active theme is shared by every Game in the JVM.
+ */
+public class Theme {
+
+    public static final double BACK_WIDTH = 100;
+    public static final double BACK_HEIGHT = 150;
+    public static final double FACE_WIDTH = 100;
+    public static final double FACE_HEIGHT = 145;
+
+    private static Theme active;
+
+    private final AssetManifest manifest;
+    private final String name;
+    //path of the card faces with {card} standing for the CardIdentity image name
+    private final String facePattern;
+    private final String backPath;
+    private final String tablePath;
+
+    private final Image[] faces = new Image[CardIdentity.COUNT];
+    private Image back;
+    private Image table;
+
+    Theme(AssetManifest manifest, String name, String facePattern, String backPath, String tablePath) {
+        this.manifest = manifest;
+        this.name = name;
+        this.facePattern = facePattern;
+        this.backPath = backPath;
+        this.tablePath = tablePath;
+    }
+
+    //the theme picked by -Dsolitaire.theme, or the first one in the manifest
+    public static synchronized Theme getActive() {
+        if (active == null) {
+            AssetManifest manifest = AssetManifest.getDefault();
+            Theme theme = manifest.getTheme(System.getProperty("solitaire.theme", ""));
+            active = theme != null ? theme : manifest.getTheme(manifest.getThemeNames().get(0));
+        }
+        return active;
+    }
+
+    //only switches the images used from now on; Game.setTheme also redraws the cards already on every table
+    public static synchronized void setActive(Theme theme) {
+        active = theme;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized Image getFace(int ordinal) {
+        if (faces[ordinal] == null) {
+            faces[ordinal] = manifest.loadImage(facePath(ordinal), FACE_WIDTH, FACE_HEIGHT);
+        }
+        return faces[ordinal];
+    }
+
+    public synchronized Image getBack() {
+        if (back == null) {
+            back = manifest.loadImage(backPath, BACK_WIDTH, BACK_HEIGHT);
+        }
+        return back;
+    }
+
+    public synchronized Image getTable() {
+        if (table == null) {
+            table = manifest.loadImage(tablePath, Main.WINDOW_WIDTH, Main.WINDOW_HEIGHT);
+        }
+        return table;
+    }
+
+    String facePath(int ordinal) {
+        return AssetFiles.facePath(facePattern, ordinal);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}